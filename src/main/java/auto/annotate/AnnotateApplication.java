@@ -3,11 +3,16 @@ package auto.annotate;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 @SpringBootApplication
 public class AnnotateApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(AnnotateApplication.class, args);
+        SpringApplication app = new SpringApplication(AnnotateApplication.class);
+        // ✅ 요청 처리는 가상 스레드 (파일 I/O 대기에 톰캣 스레드를 묶어두지 않음), 외부 설정으로 끌 수 있음
+        app.setDefaultProperties(Map.of("spring.threads.virtual.enabled", "true"));
+        app.run(args);
     }
 
 }
@@ -0,0 +1,118 @@
+package auto.annotate.common.concurrent;
+
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.common.exception.OverloadedException;
+import auto.annotate.common.trace.DiagnosticTrace;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PDFBox(파싱/렌더링) 전용 CPU 실행기
+ * - 요청 스레드(가상 스레드)는 제출 후 결과만 기다리고, 실제 CPU 작업은 코어 수만큼의 플랫폼 스레드에서 돈다
+ * - 큐가 가득 차면 바로 거절(PDF_WORKER_BUSY, 429) → 요청이 무한정 쌓이지 않게
+ * - 워커 스레드 안에서 다시 호출되면 그 자리에서 실행 (중첩 제출로 인한 데드락 방지)
+ */
+@Slf4j
+@Component
+public class PdfWorkExecutor {
+
+    private static final ThreadLocal<Boolean> IN_WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    public PdfWorkExecutor(@Value("${pdf.worker.threads:0}") int threads,
+                           @Value("${pdf.worker.queue-capacity:64}") int queueCapacity,
+                           @Value("${render.retry-after-seconds:3}") long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(() -> {
+                IN_WORKER.set(true);
+                r.run();
+            }, "pdf-cpu-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+
+        this.executor = new ThreadPoolExecutor(
+                size, size,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                factory,
+                new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("PdfWorkExecutor: threads={}, queueCapacity={}", size, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public <T> T call(Supplier<T> task) {
+        if (IN_WORKER.get()) return task.get();
+
+        Future<T> future;
+        try {
+            // 진단 트레이스가 켜진 요청이면 워커 스레드에서도 같은 트레이스에 기록
+            Supplier<T> traced = DiagnosticTrace.propagate(task);
+            future = executor.submit(traced::get);
+        } catch (RejectedExecutionException e) {
+            throw new OverloadedException(ExceptionEnum.PDF_WORKER_BUSY, retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BaseException(ExceptionEnum.INTERNAL_SERVER_ERROR);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 공유 큐를 거치지 않고 호출한 스레드에서 바로 실행 (배치처럼 자기 스레드 풀을 가진 쪽 전용)
+     * - 안쪽의 call()도 전부 같은 스레드에서 실행 → 대화형 요청의 큐를 차지하거나 PDF_WORKER_BUSY로 거절되지 않음
+     */
+    public <T> T callInline(Supplier<T> task) {
+        if (IN_WORKER.get()) return task.get();
+
+        IN_WORKER.set(true);
+        try {
+            return task.get();
+        } finally {
+            IN_WORKER.set(false);
+        }
+    }
+
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+}
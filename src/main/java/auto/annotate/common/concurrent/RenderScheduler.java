@@ -0,0 +1,137 @@
+package auto.annotate.common.concurrent;
+
+import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.common.exception.OverloadedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 렌더링/엑셀 요청 입장 제어
+ * - 전체 동시 작업 수(대기 포함) / 사용자별 / 번들별 상한을 넘으면 즉시 429
+ * - 같은 coalesceKey 작업이 이미 돌고 있으면 새로 돌리지 않고 그 결과를 같이 기다린다 (슬롯도 쓰지 않음)
+ * - 상한은 실제 생성(cold)만 센다: 작업 안에서 캐시 miss가 나 admitColdWork()를 부른 순간 슬롯을 잡는다
+ *   → 캐시 hit 다운로드는 상한과 무관
+ * - 실제 CPU 병렬도는 PdfWorkExecutor가 제한하고, 여기서는 쌓일 수 있는 요청 수를 제한
+ */
+@Slf4j
+@Component
+public class RenderScheduler {
+
+    private final int maxInFlight;
+    private final int maxPerUser;
+    private final int maxPerBundle;
+    private final long retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, AtomicInteger> perUser = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> perBundle = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Object> running = new SingleFlight<>();
+
+    // 지금 스레드에서 실행 중인 execute() 작업 (admitColdWork가 찾아 씀)
+    private static final ThreadLocal<Admission> CURRENT = new ThreadLocal<>();
+
+    public RenderScheduler(@Value("${render.max-in-flight:0}") int maxInFlight,
+                           @Value("${render.max-per-user:8}") int maxPerUser,
+                           @Value("${render.max-per-bundle:6}") int maxPerBundle,
+                           @Value("${render.retry-after-seconds:3}") long retryAfterSeconds) {
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : Runtime.getRuntime().availableProcessors() * 4;
+        this.maxPerUser = maxPerUser;
+        this.maxPerBundle = maxPerBundle;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String userKey, String bundleKey, String coalesceKey, Supplier<T> work) {
+        if (running.isRunning(coalesceKey)) {
+            log.info("render coalesced: key={}", coalesceKey);
+        }
+
+        // 입장 검사는 실제로 실행하는 쪽(leader)이 cold 작업을 시작할 때만 한다
+        return (T) running.run(coalesceKey, () -> {
+            Admission admission = new Admission(this, userKey, bundleKey);
+            Admission outer = CURRENT.get();
+            CURRENT.set(admission);
+            try {
+                return work.get();
+            } finally {
+                CURRENT.set(outer);
+                if (admission.admitted) release(userKey, bundleKey);
+            }
+        });
+    }
+
+    /**
+     * 캐시 miss로 실제 생성(파싱/렌더링/엑셀)을 시작하기 직전에 호출
+     * - execute() 안이면 그때 상한을 검사하고 슬롯을 잡는다 (넘으면 429), 작업이 끝나면 반납
+     * - execute() 밖(배치 등)이거나 이미 잡았으면 아무것도 안 함
+     */
+    public static void admitColdWork() {
+        Admission admission = CURRENT.get();
+        if (admission == null || admission.admitted) return;
+
+        admission.scheduler.admit(admission.userKey, admission.bundleKey);
+        admission.admitted = true;
+    }
+
+    private void admit(String userKey, String bundleKey) {
+        if (!tryAcquire(inFlight, maxInFlight)) {
+            reject("global", userKey, bundleKey);
+        }
+        if (!tryAcquire(counterOf(perUser, userKey), maxPerUser)) {
+            inFlight.decrementAndGet();
+            reject("user", userKey, bundleKey);
+        }
+        if (!tryAcquire(counterOf(perBundle, bundleKey), maxPerBundle)) {
+            counterOf(perUser, userKey).decrementAndGet();
+            inFlight.decrementAndGet();
+            reject("bundle", userKey, bundleKey);
+        }
+    }
+
+    private void release(String userKey, String bundleKey) {
+        counterOf(perBundle, bundleKey).decrementAndGet();
+        counterOf(perUser, userKey).decrementAndGet();
+        inFlight.decrementAndGet();
+    }
+
+    private void reject(String scope, String userKey, String bundleKey) {
+        log.warn("render rejected: scope={}, user={}, bundleKey={}, inFlight={}", scope, userKey, bundleKey, inFlight.get());
+        throw new OverloadedException(ExceptionEnum.TOO_MANY_RENDER_REQUESTS, retryAfterSeconds);
+    }
+
+    private boolean tryAcquire(AtomicInteger counter, int limit) {
+        while (true) {
+            int cur = counter.get();
+            if (cur >= limit) return false;
+            if (counter.compareAndSet(cur, cur + 1)) return true;
+        }
+    }
+
+    // 카운터는 지우지 않는다 (키 수 = 사용자/번들 수 정도라 작고, 지우면 acquire/release 경합이 생김)
+    private AtomicInteger counterOf(Map<String, AtomicInteger> counters, String key) {
+        return counters.computeIfAbsent(key == null ? "" : key, k -> new AtomicInteger());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static final class Admission {
+        private final RenderScheduler scheduler;
+        private final String userKey;
+        private final String bundleKey;
+        private boolean admitted;
+
+        private Admission(RenderScheduler scheduler, String userKey, String bundleKey) {
+            this.scheduler = scheduler;
+            this.userKey = userKey;
+            this.bundleKey = bundleKey;
+        }
+    }
+}
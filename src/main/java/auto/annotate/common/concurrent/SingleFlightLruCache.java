@@ -0,0 +1,61 @@
+package auto.annotate.common.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 최근 사용 기준 maxEntries개를 유지하는 메모리 캐시 + 같은 키 동시 계산 1회 (SingleFlight)
+ * - maxEntries <= 0이면 캐시하지 않고 매번 계산
+ * - 값은 여러 요청이 같이 읽으므로 불변 객체만 넣는다
+ */
+@Slf4j
+public class SingleFlightLruCache<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final Map<K, V> entries;
+    private final SingleFlight<K, V> computes = new SingleFlight<>();
+
+    public SingleFlightLruCache(String name, int maxEntries) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > SingleFlightLruCache.this.maxEntries;
+            }
+        };
+    }
+
+    public V get(K key, Supplier<V> compute) {
+        if (maxEntries <= 0) return compute.get();
+
+        V cached = getIfPresent(key);
+        if (cached != null) return cached;
+
+        return computes.run(key, () -> {
+            V again = getIfPresent(key);
+            if (again != null) return again;
+
+            V value = compute.get();
+            synchronized (entries) {
+                entries.put(key, value);
+            }
+            log.info("{} cached: key={}", name, key);
+            return value;
+        });
+    }
+
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    public boolean contains(K key) {
+        return getIfPresent(key) != null;
+    }
+}
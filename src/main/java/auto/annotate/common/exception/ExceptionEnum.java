@@ -16,7 +16,16 @@ public enum ExceptionEnum {
     FILE_READ_ERROR(HttpStatus.BAD_REQUEST, "FILE_READ_ERROR", "pdf를 읽는 중 오류가 발생하였습니다"),
     FILE_WRITE_ERROR(HttpStatus.BAD_REQUEST, "FILE_WRITE_ERROR","pdf를 수정하던중 오류가 발생하였습니다" ),
     FILE_NOT_FOUND(HttpStatus.BAD_REQUEST,"FILE_NOT_FOUND", "file을 찾지 못했습니다" ),
-    FILE_SAVE_FAILED(HttpStatus.BAD_REQUEST," ILE_SAVE_FAILED","저장이 실패하였습니다." );
+    FILE_SAVE_FAILED(HttpStatus.BAD_REQUEST," ILE_SAVE_FAILED","저장이 실패하였습니다." ),
+    BATCH_JOB_NOT_FOUND(HttpStatus.NOT_FOUND, "BATCH_JOB_NOT_FOUND", "배치 작업을 찾지 못했습니다"),
+    BATCH_PATH_NOT_ALLOWED(HttpStatus.FORBIDDEN, "BATCH_PATH_NOT_ALLOWED", "배치 입력 경로가 허용된 폴더 밖에 있습니다"),
+    TRACE_NOT_FOUND(HttpStatus.NOT_FOUND, "TRACE_NOT_FOUND", "진단 트레이스를 찾지 못했습니다"),
+    TRACE_FORBIDDEN(HttpStatus.FORBIDDEN, "TRACE_FORBIDDEN", "진단 트레이스 접근 권한이 없습니다"),
+    INVALID_PDF(HttpStatus.BAD_REQUEST, "INVALID_PDF", "PDF 파일이 아닙니다"),
+    UPLOAD_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "UPLOAD_TOO_LARGE", "업로드 가능한 파일 크기를 초과했습니다"),
+    UPLOAD_TOO_MANY_PAGES(HttpStatus.PAYLOAD_TOO_LARGE, "UPLOAD_TOO_MANY_PAGES", "업로드 가능한 페이지 수를 초과했습니다"),
+    PDF_WORKER_BUSY(HttpStatus.TOO_MANY_REQUESTS, "PDF_WORKER_BUSY", "PDF 처리 요청이 많습니다. 잠시 후 다시 시도해주세요"),
+    TOO_MANY_RENDER_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_RENDER_REQUESTS", "진행 중인 하이라이트/엑셀 요청이 많습니다. 잠시 후 다시 시도해주세요");
 
 
     private final HttpStatus status;
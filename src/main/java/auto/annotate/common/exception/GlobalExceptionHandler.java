@@ -3,6 +3,7 @@ package auto.annotate.common.exception;
 import auto.annotate.common.response.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
@@ -17,6 +18,15 @@ import java.util.Map;
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    // 과부하 거절 = 429 + Retry-After
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<ApiResponse<?>> handleOverloadedException(OverloadedException ex) {
+        log.warn("OverloadedException: {}", ex.getMessage());
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.errorWithOutData(ex.getExceptionEnum(), ex.getStatus()));
+    }
+
     // BaseException 예외 = 정의된 예외(BaseException)를 처리
     @ExceptionHandler(BaseException.class)
     public ResponseEntity<ApiResponse<?>> handleBaseException(BaseException ex) {
@@ -0,0 +1,17 @@
+package auto.annotate.common.exception;
+
+import lombok.Getter;
+
+/**
+ * 과부하로 요청을 받지 않을 때 (429 + Retry-After)
+ */
+@Getter
+public class OverloadedException extends BaseException {
+
+    private final long retryAfterSeconds;
+
+    public OverloadedException(ExceptionEnum exceptionEnum, long retryAfterSeconds) {
+        super(exceptionEnum);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
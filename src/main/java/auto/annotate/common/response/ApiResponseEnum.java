@@ -4,7 +4,14 @@ import lombok.Getter;
 
 @Getter
 public enum ApiResponseEnum {
-    REGISTRATION_SUCCESS("파일 저장 완료");
+    REGISTRATION_SUCCESS("파일 저장 완료"),
+    RENDER_SUCCESS("하이라이트 생성 완료"),
+    ANALYSIS_SUCCESS("번들 분석 완료"),
+    PAGE_HIGHLIGHTS_SUCCESS("페이지 하이라이트 조회 완료"),
+    TRIAGE_SUMMARY_SUCCESS("번들 요약 조회 완료"),
+    BATCH_STARTED("배치 작업 시작"),
+    BATCH_STATUS("배치 작업 상태"),
+    TRACE_FOUND("진단 트레이스 조회");
 
     private final String message;
 
@@ -0,0 +1,245 @@
+package auto.annotate.common.response;
+
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 캐시된 결과 파일(하이라이트 PDF/엑셀) 다운로드 응답
+ * - Content-Length를 미리 계산해서 내려준다
+ * - Range 요청(단일 구간) 지원: 206 + Content-Range (pdf.js가 큰 PDF를 구간 단위로 받는다)
+ * - Tomcat sendfile 지원 시: 파일 경로만 넘기고 커넥터가 커널 sendfile로 전송 (유저 공간 복사 없음)
+ * - 그 외: FileChannel.transferTo로 응답 스트림에 복사 (대상이 일반 스트림이라 JDK/서블릿 버퍼를 거치는 복사)
+ * - 원격 저장소 객체: 요청 구간만 저장소에서 range read로 받아 전송
+ * - Content-Disposition 파일명은 호출자가 정한 사용자용 이름 (RFC 5987 인코딩)
+ */
+@Slf4j
+@Component
+public class FileResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // "bytes=a-b", "bytes=a-", "bytes=-n" (단일 구간만, 여러 구간이면 전체 응답)
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    // 작은 파일은 sendfile 준비 비용이 더 크다
+    private final long sendfileMinBytes;
+
+    public FileResponseWriter(@Value("${download.sendfile-min-bytes:49152}") long sendfileMinBytes) {
+        this.sendfileMinBytes = sendfileMinBytes;
+    }
+
+    public void write(HttpServletRequest request,
+                      HttpServletResponse response,
+                      Path file,
+                      String contentType,
+                      String dispositionType,
+                      String downloadName) {
+
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+
+        long size;
+        long lastModified;
+        try {
+            size = Files.size(file);
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+
+        long[] span = prepare(request, response, size, lastModified, contentType, dispositionType,
+                downloadName != null ? downloadName : file.getFileName().toString());
+        if (span == null) return;
+
+        long start = span[0];
+        long end = span[1];
+        long length = end - start;
+
+        if (length >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        long pos = start;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+
+            while (pos < end) {
+                long n = in.transferTo(pos, end - pos, out);
+                if (n <= 0) break;
+                pos += n;
+            }
+            if (pos == end) response.flushBuffer();
+
+        } catch (IOException e) {
+            // 클라이언트가 중간에 끊은 경우가 대부분이라 warn만 남긴다
+            log.warn("file download interrupted: file={}, msg={}", file.getFileName(), e.getMessage());
+            return;
+        }
+
+        if (pos < end) {
+            // Content-Length를 이미 보냈으므로 조용히 끝내면 잘린 파일이 정상 응답처럼 보인다 → 오류로 끊는다
+            log.error("file download short read: file={}, sent={}, expected={}", file.getFileName(), pos - start, length);
+            throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
+        }
+    }
+
+    /**
+     * 원격 저장소(s3) 객체 전송: 요청 구간만 저장소에서 읽어 그대로 흘려보낸다 (디스크 캐시 안 거침)
+     * - 수정 시각을 모르므로 Last-Modified 없음, If-Range가 오면 전체 응답
+     */
+    public void write(HttpServletRequest request,
+                      HttpServletResponse response,
+                      long size,
+                      RangeSource source,
+                      String contentType,
+                      String dispositionType,
+                      String downloadName) {
+
+        long[] span = prepare(request, response, size, -1L, contentType, dispositionType, downloadName);
+        if (span == null) return;
+
+        long length = span[1] - span[0];
+        if (length == 0) return;
+
+        long sent;
+        try (InputStream in = source.open(span[0], length)) {
+            sent = in.transferTo(response.getOutputStream());
+            if (sent == length) response.flushBuffer();
+        } catch (IOException e) {
+            log.warn("object download interrupted: name={}, msg={}", downloadName, e.getMessage());
+            return;
+        }
+
+        if (sent != length) {
+            log.error("object download short read: name={}, sent={}, expected={}", downloadName, sent, length);
+            throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
+        }
+    }
+
+    /** [offset, offset + length) 구간을 여는 곳 (ObjectStorage::openRange) */
+    @FunctionalInterface
+    public interface RangeSource {
+        InputStream open(long offset, long length);
+    }
+
+    /**
+     * 공통 헤더 + Range 처리
+     * - null: 416으로 응답을 끝냄 / {start, endExclusive}: 보낼 구간 (Content-Length까지 설정됨)
+     */
+    private long[] prepare(HttpServletRequest request,
+                           HttpServletResponse response,
+                           long size,
+                           long lastModified,
+                           String contentType,
+                           String dispositionType,
+                           String downloadName) {
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (lastModified >= 0) response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder(dispositionType)
+                .filename(downloadName, StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        long start = 0;
+        long end = size;   // exclusive
+
+        long[] range = requestedRange(request, size, lastModified);
+        if (range != null) {
+            if (range.length == 0) {
+                // 범위가 파일 밖 → 416
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setContentLengthLong(0);
+                return null;
+            }
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+        }
+
+        response.setContentLengthLong(end - start);
+        return new long[]{start, end};
+    }
+
+    /**
+     * Range 헤더 해석
+     * - null: 전체 응답 (Range 없음/여러 구간/형식 오류(start > end 포함)/If-Range 불일치·ETag)
+     * - 빈 배열: 만족할 수 없는 범위 (416)
+     * - {start, endExclusive}: 부분 응답
+     */
+    private long[] requestedRange(HttpServletRequest request, long size, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) return null;
+
+        // If-Range가 있으면 파일이 그 뒤로 바뀌지 않았을 때만 부분 응답
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            if (lastModified < 0) return null;
+            long since;
+            try {
+                since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                // ETag 형태의 If-Range → 날짜 비교 불가, 전체 응답
+                return null;
+            }
+            if (since < 0 || lastModified / 1000 > since / 1000) return null;
+        }
+
+        Matcher m = SINGLE_RANGE.matcher(header.trim());
+        if (!m.matches()) return null;
+
+        String from = m.group(1);
+        String to = m.group(2);
+        if (from.isEmpty() && to.isEmpty()) return null;
+
+        try {
+            long start;
+            long endInclusive;
+            if (from.isEmpty()) {
+                // 끝에서 n바이트
+                long suffix = Long.parseLong(to);
+                if (suffix == 0) return new long[0];
+                start = Math.max(0, size - suffix);
+                endInclusive = size - 1;
+            } else {
+                start = Long.parseLong(from);
+                if (!to.isEmpty() && start > Long.parseLong(to)) return null; // bytes=5-3 → 형식 오류라 무시
+                endInclusive = to.isEmpty() ? size - 1 : Math.min(Long.parseLong(to), size - 1);
+            }
+
+            if (start >= size) return new long[0];
+            return new long[]{start, endInclusive + 1};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
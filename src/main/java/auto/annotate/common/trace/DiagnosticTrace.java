@@ -0,0 +1,124 @@
+package auto.annotate.common.trace;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 요청 단위 진단 트레이스
+ * - 켜진 요청(X-Diagnostic-Trace 헤더 또는 샘플링)에서만 바인딩된다
+ * - 꺼져 있으면 current()가 null → 호출부는 null 체크만 하고 인자 박싱/문자열 조립을 하지 않는다
+ *     DiagnosticTrace trace = DiagnosticTrace.current();
+ *     if (trace != null) trace.event("SURGERY_ROW", "pageIndex", pageIndex, "text", text);
+ * - 이벤트 값은 그대로 보관하고 문자열 변환은 다운로드 시점에만 한다
+ */
+@Getter
+public class DiagnosticTrace {
+
+    private static final ThreadLocal<DiagnosticTrace> CURRENT = new ThreadLocal<>();
+
+    // 진행 중인 트레이스가 하나도 없으면 ThreadLocal 조회도 생략
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private final String traceId;
+    private final String method;
+    private final String uri;
+    private final String reason;          // header | sampled
+    private final Instant startedAt = Instant.now();
+    private final int maxEvents;
+
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    private volatile long elapsedMs = -1;
+    private volatile int status;
+
+    public DiagnosticTrace(String traceId, String method, String uri, String reason, int maxEvents) {
+        this.traceId = traceId;
+        this.method = method;
+        this.uri = uri;
+        this.reason = reason;
+        this.maxEvents = maxEvents;
+    }
+
+    public static DiagnosticTrace current() {
+        return ACTIVE.get() == 0 ? null : CURRENT.get();
+    }
+
+    /** fields는 key, value 순서의 쌍 */
+    public void event(String name, Object... fields) {
+        if (recorded.incrementAndGet() > maxEvents) {
+            dropped.incrementAndGet();
+            return;
+        }
+        events.add(new Event((System.nanoTime() - startNanos) / 1_000,
+                Thread.currentThread().getName(), name, fields));
+    }
+
+    public List<Event> snapshot() {
+        return new ArrayList<>(events);
+    }
+
+    public boolean isFinished() {
+        return elapsedMs >= 0;
+    }
+
+    void finish(int status) {
+        this.status = status;
+        this.elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    void bind() {
+        ACTIVE.incrementAndGet();
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+        ACTIVE.decrementAndGet();
+    }
+
+    /**
+     * 다른 스레드(PDF 워커 등)에서 실행할 작업에 현재 트레이스를 이어 붙인다
+     * - 트레이스가 없으면 작업을 그대로 반환
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        DiagnosticTrace trace = current();
+        if (trace == null) return task;
+
+        return () -> {
+            DiagnosticTrace previous = CURRENT.get();
+            if (previous == trace) return task.get();
+
+            trace.bind();
+            try {
+                return task.get();
+            } finally {
+                trace.unbind();
+                if (previous != null) CURRENT.set(previous);
+            }
+        };
+    }
+
+    @Getter
+    public static class Event {
+        private final long atMicros;     // 요청 시작 기준
+        private final String thread;
+        private final String name;
+        private final Object[] fields;
+
+        private Event(long atMicros, String thread, String name, Object[] fields) {
+            this.atMicros = atMicros;
+            this.thread = thread;
+            this.name = name;
+            this.fields = fields;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package auto.annotate.common.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 요청별 진단 트레이스 on/off
+ * - X-Diagnostic-Trace: true 헤더(+ 관리자 토큰)가 있거나, trace.sample-rate(0.0~1.0) 확률로 샘플링된 요청만 트레이스
+ * - trace.enabled=false(기본)면 아무 요청도 트레이스하지 않는다 (TraceAccess)
+ * - 트레이스된 요청은 응답 헤더 X-Trace-Id → GET /admin/trace/{traceId}로 내려받기 (관리자 토큰 필요)
+ */
+@Slf4j
+@Component
+public class DiagnosticTraceFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_HEADER = "X-Diagnostic-Trace";
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final TraceStore traceStore;
+    private final TraceAccess traceAccess;
+    private final double sampleRate;
+    private final int maxEvents;
+
+    public DiagnosticTraceFilter(TraceStore traceStore,
+                                 TraceAccess traceAccess,
+                                 @Value("${trace.sample-rate:0.0}") double sampleRate,
+                                 @Value("${trace.max-events:5000}") int maxEvents) {
+        this.traceStore = traceStore;
+        this.traceAccess = traceAccess;
+        this.sampleRate = sampleRate;
+        this.maxEvents = maxEvents;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/admin/trace");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String reason = reasonOf(request);
+        if (reason == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        DiagnosticTrace trace = new DiagnosticTrace(UUID.randomUUID().toString(),
+                request.getMethod(), request.getRequestURI(), reason, maxEvents);
+        // 파일 스트리밍 응답은 본문부터 커밋되므로 헤더를 먼저 붙인다
+        response.setHeader(TRACE_ID_HEADER, trace.getTraceId());
+        traceStore.put(trace);
+
+        trace.bind();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trace.unbind();
+            trace.finish(response.getStatus());
+            log.info("diagnostic trace: traceId={}, uri={}, events={}, dropped={}, elapsedMs={}",
+                    trace.getTraceId(), trace.getUri(), trace.getRecorded().get() - trace.getDropped().get(),
+                    trace.getDropped().get(),
+                    trace.getElapsedMs());
+        }
+    }
+
+    private String reasonOf(HttpServletRequest request) {
+        if (!traceAccess.isEnabled()) return null;
+
+        String header = request.getHeader(TRACE_HEADER);
+        if (header != null && (header.equalsIgnoreCase("true") || header.equals("1"))
+                && traceAccess.isAdmin(request)) return "header";
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) return "sampled";
+        return null;
+    }
+}
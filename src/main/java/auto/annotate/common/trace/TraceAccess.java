@@ -0,0 +1,41 @@
+package auto.annotate.common.trace;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 진단 트레이스 접근 제어 (트레이스에는 row 원문 = 환자 진료 정보가 들어간다)
+ * - trace.enabled=false(기본): 트레이스 기록/다운로드 모두 꺼짐
+ * - 헤더로 켜기(X-Diagnostic-Trace)와 다운로드는 X-Admin-Token이 trace.admin-token과 같을 때만
+ *   (토큰이 설정되지 않았으면 둘 다 불가, 샘플링만 동작)
+ */
+@Component
+public class TraceAccess {
+
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private final boolean enabled;
+    private final byte[] adminToken;
+
+    public TraceAccess(@Value("${trace.enabled:false}") boolean enabled,
+                       @Value("${trace.admin-token:}") String adminToken) {
+        this.enabled = enabled;
+        this.adminToken = adminToken.isBlank() ? null : adminToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAdmin(HttpServletRequest request) {
+        if (!enabled || adminToken == null) return false;
+
+        String given = request.getHeader(ADMIN_TOKEN_HEADER);
+        // 길이/내용 비교 시간이 토큰에 따라 달라지지 않게
+        return given != null && MessageDigest.isEqual(adminToken, given.getBytes(StandardCharsets.UTF_8));
+    }
+}
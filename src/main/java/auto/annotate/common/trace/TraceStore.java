@@ -0,0 +1,38 @@
+package auto.annotate.common.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 최근 진단 트레이스 보관 (메모리, 최근 maxEntries개)
+ */
+@Component
+public class TraceStore {
+
+    private final Map<String, DiagnosticTrace> traces;
+
+    public TraceStore(@Value("${trace.store.max-entries:100}") int maxEntries) {
+        this.traces = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DiagnosticTrace> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public void put(DiagnosticTrace trace) {
+        synchronized (traces) {
+            traces.put(trace.getTraceId(), trace);
+        }
+    }
+
+    public Optional<DiagnosticTrace> find(String traceId) {
+        synchronized (traces) {
+            return Optional.ofNullable(traces.get(traceId));
+        }
+    }
+}
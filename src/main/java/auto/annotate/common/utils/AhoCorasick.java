@@ -0,0 +1,108 @@
+package auto.annotate.common.utils;
+
+import java.util.*;
+
+/**
+ * 여러 키워드를 텍스트 한 번 훑기로 동시에 찾는 Aho-Corasick 오토마타
+ * - 키워드마다 payload(예: HighlightType)를 붙일 수 있음
+ * - 같은 키워드가 여러 payload에 속하면 hit도 payload 수만큼 나온다
+ */
+public final class AhoCorasick<T> {
+
+    @FunctionalInterface
+    public interface MatchHandler<T> {
+        void onMatch(int start, int endExclusive, T payload);
+    }
+
+    private record Output<T>(int length, T payload) {}
+
+    private final List<Map<Character, Integer>> next = new ArrayList<>();
+    private final List<List<Output<T>>> outputs = new ArrayList<>();
+    private int[] fail = new int[0];
+    private int keywordCount = 0;
+
+    public AhoCorasick() {
+        newNode(); // root
+    }
+
+    public AhoCorasick<T> add(String keyword, T payload) {
+        if (keyword == null || keyword.isEmpty()) return this;
+
+        int state = 0;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            Integer child = next.get(state).get(c);
+            if (child == null) {
+                child = newNode();
+                next.get(state).put(c, child);
+            }
+            state = child;
+        }
+        outputs.get(state).add(new Output<>(keyword.length(), payload));
+        keywordCount++;
+        return this;
+    }
+
+    /** 키워드 추가가 끝난 뒤 한 번 호출 (failure link 계산) */
+    public AhoCorasick<T> build() {
+        fail = new int[next.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int child : next.get(0).values()) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> e : next.get(state).entrySet()) {
+                char c = e.getKey();
+                int child = e.getValue();
+
+                int f = fail[state];
+                while (f != 0 && !next.get(f).containsKey(c)) f = fail[f];
+                Integer target = next.get(f).get(c);
+                fail[child] = (target == null || target == child) ? 0 : target;
+
+                // 접미 키워드 출력도 미리 합쳐 둔다
+                outputs.get(child).addAll(outputs.get(fail[child]));
+                queue.add(child);
+            }
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return keywordCount == 0;
+    }
+
+    public void search(CharSequence text, MatchHandler<T> handler) {
+        if (text == null) return;
+        search(text, 0, text.length(), handler);
+    }
+
+    /**
+     * text의 [from, toExclusive) 구간만 훑는다 (구간 밖으로 이어지는 매칭은 없음)
+     * - 매칭 위치는 text 전체 기준 인덱스
+     */
+    public void search(CharSequence text, int from, int toExclusive, MatchHandler<T> handler) {
+        if (text == null || keywordCount == 0) return;
+
+        int state = 0;
+        for (int i = Math.max(0, from); i < Math.min(toExclusive, text.length()); i++) {
+            char c = text.charAt(i);
+            while (state != 0 && !next.get(state).containsKey(c)) state = fail[state];
+            state = next.get(state).getOrDefault(c, 0);
+
+            for (Output<T> out : outputs.get(state)) {
+                handler.onMatch(i + 1 - out.length(), i + 1, out.payload());
+            }
+        }
+    }
+
+    private int newNode() {
+        next.add(new HashMap<>());
+        outputs.add(new ArrayList<>());
+        return next.size() - 1;
+    }
+}
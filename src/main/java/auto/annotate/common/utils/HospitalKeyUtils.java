@@ -42,6 +42,32 @@ public class HospitalKeyUtils {
         return 0;
     }
 
+    /** 약 키 정규화: 공백/언더바 제거 */
+    public static String normalizeDrugKey(String s) {
+        if (s == null) return "";
+        return s.replaceAll("\\s+", "").replace("_", "");
+    }
+
+    /** "성분명|약품명" 키. 둘 중 하나라도 없으면 "" */
+    public static String drugKey(PdfRowRecord r) {
+        String ingredient = normalizeDrugKey(r.getCodeName());     // 성분명
+        String drugName = normalizeDrugKey(r.getTreatmentItem());  // 약품명
+        if (ingredient.isBlank() || drugName.isBlank()) return "";
+        return ingredient + "|" + drugName;
+    }
+
+    /** 숫자만 남겨 파싱, 실패 시 0 */
+    public static int parsePositiveInt(String s) {
+        if (s == null) return 0;
+        String n = s.replaceAll("[^0-9]", "");
+        if (n.isBlank()) return 0;
+        try {
+            return Integer.parseInt(n);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     private static int safeParseInt(String v) {
         try { return Integer.parseInt(v); }
         catch (Exception e) { return 0; }
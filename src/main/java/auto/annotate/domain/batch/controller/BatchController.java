@@ -0,0 +1,38 @@
+package auto.annotate.domain.batch.controller;
+
+import auto.annotate.common.response.ApiResponse;
+import auto.annotate.common.response.ApiResponseEnum;
+import auto.annotate.domain.batch.dto.request.BatchJobRequest;
+import auto.annotate.domain.batch.dto.response.BatchJobStatus;
+import auto.annotate.domain.batch.service.BatchJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@RequestMapping("/admin/batch")
+public class BatchController {
+
+    private final BatchJobService batchJobService;
+
+    /**
+     * 배치 시작 (비동기). 응답의 jobId로 진행 상황 조회
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BatchJobStatus>> start(@RequestBody BatchJobRequest request) {
+        log.info("🔥 batch job 요청 directory={}, manifest={}", request.getDirectory(), request.getManifest());
+
+        BatchJobStatus status = batchJobService.start(request);
+        return ResponseEntity.ok(ApiResponse.successWithData(status, ApiResponseEnum.BATCH_STARTED));
+    }
+
+    @GetMapping(value = "/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BatchJobStatus>> status(@PathVariable String jobId) {
+        BatchJobStatus status = batchJobService.status(jobId);
+        return ResponseEntity.ok(ApiResponse.successWithData(status, ApiResponseEnum.BATCH_STATUS));
+    }
+}
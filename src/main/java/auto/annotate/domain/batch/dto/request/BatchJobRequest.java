@@ -0,0 +1,19 @@
+package auto.annotate.domain.batch.dto.request;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 배치 입력: directory 또는 manifest 중 하나
+ * - directory: 하위 폴더 1개 = 번들 1개 (폴더 안의 *.pdf)
+ * - manifest: 한 줄 = 번들 1개 (폴더 경로 또는 콤마로 구분한 PDF 경로들, '#'은 주석)
+ * - 경로는 batch.root 기준 (root 밖을 가리키면 403)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchJobRequest {
+    private String directory;
+    private String manifest;
+}
@@ -0,0 +1,38 @@
+package auto.annotate.domain.batch.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 배치 진행 상황 / 처리량
+ */
+@Getter
+@Builder
+public class BatchJobStatus {
+
+    private final String jobId;
+    private final boolean finished;
+    private final int total;
+    private final int succeeded;
+    private final int failed;
+    private final int parallelism;
+    private final long elapsedMs;
+    private final double bundlesPerSecond;
+    private final List<BundleResult> results;
+
+    @Getter
+    @Builder
+    public static class BundleResult {
+        private final String source;          // 폴더 또는 manifest 라인
+        private final String bundleKey;
+        private final boolean success;
+        private final int documents;
+        private final int highlightedFiles;
+        private final int excelFiles;
+        private final List<String> warnings;  // 조건별 부분 실패 (대상 PDF 없음 등)
+        private final String error;
+        private final long elapsedMs;
+    }
+}
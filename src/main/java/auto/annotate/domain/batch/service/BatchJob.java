@@ -0,0 +1,68 @@
+package auto.annotate.domain.batch.service;
+
+import auto.annotate.domain.batch.dto.response.BatchJobStatus;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 실행 중인 배치 1건의 상태 (여러 워커 스레드가 동시에 갱신)
+ */
+class BatchJob {
+
+    private final String jobId;
+    private final int total;
+    private final int parallelism;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt = 0L;
+
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final Queue<BatchJobStatus.BundleResult> results = new ConcurrentLinkedQueue<>();
+
+    BatchJob(String jobId, int total, int parallelism) {
+        this.jobId = jobId;
+        this.total = total;
+        this.parallelism = parallelism;
+        if (total == 0) finishedAt = startedAt;
+    }
+
+    String getJobId() {
+        return jobId;
+    }
+
+    void record(BatchJobStatus.BundleResult result) {
+        results.add(result);
+        if (result.isSuccess()) succeeded.incrementAndGet();
+        else failed.incrementAndGet();
+
+        if (completed.incrementAndGet() >= total) finishedAt = System.currentTimeMillis();
+    }
+
+    /** cutoff 이전에 끝난 작업인지 (상태 보관 기간이 지나 정리 대상) */
+    boolean finishedBefore(long cutoff) {
+        return finishedAt > 0 && finishedAt < cutoff;
+    }
+
+    BatchJobStatus snapshot() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        long elapsedMs = Math.max(end - startedAt, 1L);
+        int ok = succeeded.get();
+        int ng = failed.get();
+
+        return BatchJobStatus.builder()
+                .jobId(jobId)
+                .finished(finishedAt > 0)
+                .total(total)
+                .succeeded(ok)
+                .failed(ng)
+                .parallelism(parallelism)
+                .elapsedMs(elapsedMs)
+                .bundlesPerSecond((ok + ng) * 1000.0 / elapsedMs)
+                .results(new ArrayList<>(results))
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package auto.annotate.domain.batch.service;
+
+import auto.annotate.domain.batch.dto.request.BatchJobRequest;
+import auto.annotate.domain.batch.dto.response.BatchJobStatus;
+
+public interface BatchJobService {
+    BatchJobStatus start(BatchJobRequest request);
+
+    BatchJobStatus status(String jobId);
+}
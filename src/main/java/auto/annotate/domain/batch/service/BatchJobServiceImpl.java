@@ -0,0 +1,235 @@
+package auto.annotate.domain.batch.service;
+
+import auto.annotate.common.concurrent.PdfWorkExecutor;
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.domain.batch.dto.request.BatchJobRequest;
+import auto.annotate.domain.batch.dto.response.BatchJobStatus;
+import auto.annotate.domain.document.dto.response.BundleRenderResponse;
+import auto.annotate.domain.document.entity.Document;
+import auto.annotate.domain.document.service.DocumentService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 다건 번들 배치 처리
+ * - 번들마다: 저장/분류 → 일괄 렌더링(파싱+룰+하이라이트 PDF) → 조건별 엑셀
+ * - work-stealing pool에서 번들 단위로 병렬 실행, 번들 하나의 실패는 그 번들에서 끝난다
+ * - PDF 작업은 배치 풀 스레드에서 직접 실행 (PdfWorkExecutor 공유 큐를 쓰지 않음 → 대화형 부하로 거절되지 않음)
+ * - 입력 경로는 batch.root 아래만 허용 (설정이 없으면 배치 비활성)
+ */
+@Slf4j
+@Service
+public class BatchJobServiceImpl implements BatchJobService {
+
+    private static final int[] CONDITIONS = {0, 1, 2, 3};
+
+    private final DocumentService documentService;
+    private final PdfWorkExecutor pdfWorkExecutor;
+    private final ExecutorService pool;
+    private final int parallelism;
+    private final Path root;
+    private final long jobRetentionMs;
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    public BatchJobServiceImpl(DocumentService documentService,
+                               PdfWorkExecutor pdfWorkExecutor,
+                               @Value("${batch.parallelism:0}") int parallelism,
+                               @Value("${batch.root:}") String root,
+                               @Value("${batch.job-retention-minutes:60}") long jobRetentionMinutes) {
+        this.documentService = documentService;
+        this.pdfWorkExecutor = pdfWorkExecutor;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = Executors.newWorkStealingPool(this.parallelism);
+        this.root = root == null || root.isBlank() ? null : Paths.get(root).toAbsolutePath().normalize();
+        this.jobRetentionMs = TimeUnit.MINUTES.toMillis(Math.max(1, jobRetentionMinutes));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public BatchJobStatus start(BatchJobRequest request) {
+        pruneFinishedJobs();
+        List<BatchBundle> bundles = resolveBundles(request);
+
+        String jobId = UUID.randomUUID().toString();
+        BatchJob job = new BatchJob(jobId, bundles.size(), parallelism);
+        jobs.put(jobId, job);
+
+        log.info("[BATCH] start jobId={}, bundles={}, parallelism={}", jobId, bundles.size(), parallelism);
+
+        for (BatchBundle bundle : bundles) {
+            pool.submit(() -> job.record(pdfWorkExecutor.callInline(() -> runBundle(bundle))));
+        }
+        return job.snapshot();
+    }
+
+    @Override
+    public BatchJobStatus status(String jobId) {
+        pruneFinishedJobs();
+        BatchJob job = jobs.get(jobId);
+        if (job == null) throw new BaseException(ExceptionEnum.BATCH_JOB_NOT_FOUND);
+        return job.snapshot();
+    }
+
+    /** 끝난 지 보관 기간이 지난 작업 상태는 버린다 */
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - jobRetentionMs;
+        jobs.values().removeIf(job -> job.finishedBefore(cutoff));
+    }
+
+    private BatchJobStatus.BundleResult runBundle(BatchBundle bundle) {
+        long t0 = System.currentTimeMillis();
+        String bundleKey = null;
+        int documents = 0;
+
+        try {
+            List<Document> saved = documentService.saveFromPaths(bundle.files());
+            if (saved.isEmpty()) throw new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND);
+
+            documents = saved.size();
+            bundleKey = saved.get(0).getBundleKey();
+            UUID anyId = saved.get(0).getId();
+
+            BundleRenderResponse rendered = documentService.renderBundle(anyId, false);
+
+            int excelFiles = 0;
+            List<String> warnings = new ArrayList<>();
+            for (int condition : CONDITIONS) {
+                try {
+                    documentService.downloadExcelByCondition(anyId, condition);
+                    excelFiles++;
+                } catch (BaseException e) {
+                    warnings.add("excel cond" + condition + ": " + e.getMessage());
+                }
+            }
+
+            return BatchJobStatus.BundleResult.builder()
+                    .source(bundle.source())
+                    .bundleKey(bundleKey)
+                    .success(true)
+                    .documents(documents)
+                    .highlightedFiles(rendered.getFiles().size())
+                    .excelFiles(excelFiles)
+                    .warnings(warnings)
+                    .elapsedMs(System.currentTimeMillis() - t0)
+                    .build();
+
+        } catch (Exception e) {
+            log.warn("[BATCH] bundle failed source={}", bundle.source(), e);
+            return BatchJobStatus.BundleResult.builder()
+                    .source(bundle.source())
+                    .bundleKey(bundleKey)
+                    .success(false)
+                    .documents(documents)
+                    .warnings(List.of())
+                    .error(e.getClass().getSimpleName() + ": " + e.getMessage())
+                    .elapsedMs(System.currentTimeMillis() - t0)
+                    .build();
+        }
+    }
+
+    private List<BatchBundle> resolveBundles(BatchJobRequest request) {
+        if (request == null) throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
+
+        if (root == null) throw new BaseException(ExceptionEnum.BATCH_PATH_NOT_ALLOWED);
+
+        try {
+            if (request.getManifest() != null && !request.getManifest().isBlank()) {
+                return fromManifest(insideRoot(root, request.getManifest()));
+            }
+            if (request.getDirectory() != null && !request.getDirectory().isBlank()) {
+                return fromDirectory(insideRoot(root, request.getDirectory()));
+            }
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
+        }
+        throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
+    }
+
+    /** 하위 폴더 1개 = 번들 1개 */
+    private List<BatchBundle> fromDirectory(Path parent) throws IOException {
+        if (!Files.isDirectory(parent)) throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+
+        List<BatchBundle> bundles = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(parent)) {
+            for (Path dir : dirs.filter(Files::isDirectory).sorted().toList()) {
+                List<Path> pdfs = listPdfs(dir);
+                if (!pdfs.isEmpty()) bundles.add(new BatchBundle(dir.toString(), pdfs));
+            }
+        }
+        return bundles;
+    }
+
+    /**
+     * base 기준으로 경로를 풀고, 정규화(.. 제거)/심볼릭 링크 해석 후에도 batch.root 안인지 확인
+     * - 절대 경로도 batch.root 안이면 허용
+     */
+    private Path insideRoot(Path base, String input) throws IOException {
+        Path p = base.resolve(input.trim()).normalize();
+        if (!p.startsWith(root)) throw new BaseException(ExceptionEnum.BATCH_PATH_NOT_ALLOWED);
+
+        if (Files.exists(p) && !isUnderRoot(p)) throw new BaseException(ExceptionEnum.BATCH_PATH_NOT_ALLOWED);
+        return p;
+    }
+
+    private boolean isUnderRoot(Path p) {
+        try {
+            return p.toRealPath().startsWith(root.toRealPath());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** 한 줄 = 번들 1개: 폴더 경로 또는 "a.pdf,b.pdf,..." (상대 경로는 manifest 기준, batch.root 밖은 거절) */
+    private List<BatchBundle> fromManifest(Path manifest) throws IOException {
+        if (!Files.isRegularFile(manifest)) throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        Path base = manifest.toAbsolutePath().getParent();
+
+        List<BatchBundle> bundles = new ArrayList<>();
+        for (String raw : Files.readAllLines(manifest)) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            List<Path> files = new ArrayList<>();
+            for (String part : line.split(",")) {
+                if (part.isBlank()) continue;
+
+                Path p = insideRoot(base, part);
+                if (Files.isDirectory(p)) files.addAll(listPdfs(p));
+                else files.add(p);
+            }
+            bundles.add(new BatchBundle(line, files));
+        }
+        return bundles;
+    }
+
+    private List<Path> listPdfs(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(this::isUnderRoot)   // 폴더 안 심볼릭 링크로 root 밖을 가리키는 파일 제외
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".pdf"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private record BatchBundle(String source, List<Path> files) {}
+}
@@ -1,12 +1,24 @@
 package auto.annotate.domain.document.controller;
 
 
+import auto.annotate.common.concurrent.RenderScheduler;
 import auto.annotate.common.exception.BaseException;
 import auto.annotate.common.exception.ExceptionEnum;
 import auto.annotate.common.response.ApiResponse;
 import auto.annotate.common.response.ApiResponseEnum;
+import auto.annotate.common.response.FileResponseWriter;
+import auto.annotate.domain.document.dto.response.BundleRenderResponse;
+import auto.annotate.domain.document.dto.response.UploadedDocumentResponse;
+import auto.annotate.domain.document.entity.Document;
 import auto.annotate.domain.document.repository.DocumentRepository;
 import auto.annotate.domain.document.service.DocumentService;
+import auto.annotate.domain.document.storage.PdfIngestor;
+import auto.annotate.domain.document.storage.StoredObjectResource;
+import auto.annotate.domain.highlight.dto.response.BundleAnalysisResponse;
+import auto.annotate.domain.highlight.dto.response.PageHighlightsResponse;
+import auto.annotate.domain.highlight.dto.response.TriageSummaryResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
@@ -17,6 +29,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.Principal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +46,9 @@ public class DocumentController {
 
     private final DocumentService documentService;
     private final DocumentRepository documentRepository;
+    private final RenderScheduler renderScheduler;
+    private final FileResponseWriter fileResponseWriter;
+    private final PdfIngestor pdfIngestor;
 
     @PostMapping(value="/upload",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
@@ -48,15 +66,52 @@ public class DocumentController {
     }
 
 
+    /**
+     * 스트리밍 업로드: 요청 본문이 PDF 바이트 그대로 (multipart 아님)
+     * - 번들의 첫 파일은 bundleKey 없이 올리고, 응답의 bundleKey로 나머지 파일을 이어서 올린다
+     */
+    @PostMapping(value = "/upload/stream",
+            consumes = MediaType.APPLICATION_PDF_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<UploadedDocumentResponse>> streamUpload(
+            @RequestParam(name = "fileName", defaultValue = "upload.pdf") String fileName,
+            @RequestParam(name = "bundleKey", required = false) String bundleKey,
+            HttpServletRequest request
+    ) throws IOException {
+        long declared = request.getContentLengthLong();
+        if (declared > pdfIngestor.getMaxBytes()) {
+            throw new BaseException(ExceptionEnum.UPLOAD_TOO_LARGE);
+        }
+
+        Document saved = documentService.saveStream(request.getInputStream(), fileName, bundleKey);
+        return ResponseEntity.ok(ApiResponse.successWithData(
+                UploadedDocumentResponse.of(saved), ApiResponseEnum.REGISTRATION_SUCCESS));
+    }
+
     @GetMapping("/{documentId}/highlighted")
-    public ResponseEntity<Resource> getHighlightedDocument(
+    public void getHighlightedDocument(
             @PathVariable UUID documentId,
             @RequestParam(name = "condition", defaultValue = "0") int condition,
-            @RequestParam(name = "download", defaultValue = "false") boolean download
+            @RequestParam(name = "download", defaultValue = "false") boolean download,
+            @RequestParam(name = "layered", defaultValue = "false") boolean layered,
+            @RequestParam(name = "flatten", defaultValue = "false") boolean flatten,
+            @RequestParam(name = "hitsOnly", defaultValue = "false") boolean hitsOnly,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
-        log.info("🔥 highlighted 요청 documentId={}, condition={}", documentId, condition);
+        log.info("🔥 highlighted 요청 documentId={}, condition={}, layered={}, flatten={}, hitsOnly={}",
+                documentId, condition, layered, flatten, hitsOnly);
 
-        Resource resource = documentService.loadHighlightedFileAsResource(documentId, condition);
+        // layered=true: condition의 target PDF에 모든 조건을 레이어로 겹친 파일 1개
+        // flatten=true: 주석 없이 페이지 내용에 하이라이트를 직접 그린 파일 (보관/인쇄용)
+        // hitsOnly=true: 하이라이트가 있는 페이지만 뽑은 파일 (원본 페이지 번호 색인 포함)
+        Resource resource = renderScheduler.execute(
+                userKeyOf(request),
+                bundleKeyOf(documentId),
+                "highlighted:" + documentId + ":" + condition + ":" + layered + ":" + flatten + ":" + hitsOnly,
+                () -> layered
+                        ? documentService.loadLayeredFileAsResource(documentId, condition, flatten, hitsOnly)
+                        : documentService.loadHighlightedFileAsResource(documentId, condition, flatten, hitsOnly));
 
         if (!resource.exists()) {
             throw new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND);
@@ -64,11 +119,78 @@ public class DocumentController {
 
         String dispositionType = download ? "attachment" : "inline";
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_PDF)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        dispositionType + "; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+        // ✅ 캐시된 파일 전송 (Content-Length/Range 지원, 가능하면 sendfile)
+        writeResource(request, response, resource,
+                MediaType.APPLICATION_PDF_VALUE, dispositionType,
+                documentService.highlightedDownloadNameOf(documentId, condition, layered, flatten, hitsOnly));
+    }
+
+    /**
+     * 번들 일괄 렌더링: 조건 0~3 하이라이트 PDF를 target PDF당 1회 파싱으로 생성
+     * - 이후 /{documentId}/highlighted 요청은 생성된 파일을 그대로 사용
+     */
+    @PostMapping(value = "/{documentId}/highlighted/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BundleRenderResponse>> renderBundle(
+            @PathVariable UUID documentId,
+            @RequestParam(name = "combined", defaultValue = "false") boolean combined,
+            HttpServletRequest request
+    ) {
+        log.info("🔥 batch 요청 documentId={}, combined={}", documentId, combined);
+
+        BundleRenderResponse result = renderScheduler.execute(
+                userKeyOf(request),
+                bundleKeyOf(documentId),
+                "batch:" + documentId + ":" + combined,
+                () -> documentService.renderBundle(documentId, combined));
+        return ResponseEntity.ok(ApiResponse.successWithData(result, ApiResponseEnum.RENDER_SUCCESS));
+    }
+
+    /**
+     * 번들 문서 간 분석: 진료정보요약/세부진료정보/처방조제정보 row를 병원 키로 조인한 결과
+     */
+    @GetMapping(value = "/{documentId}/bundle/analysis", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BundleAnalysisResponse>> analyzeBundle(
+            @PathVariable UUID documentId,
+            HttpServletRequest request
+    ) {
+        BundleAnalysisResponse result = renderScheduler.execute(
+                userKeyOf(request),
+                bundleKeyOf(documentId),
+                "analysis:" + documentId,
+                () -> documentService.analyzeBundle(documentId));
+        return ResponseEntity.ok(ApiResponse.successWithData(result, ApiResponseEnum.ANALYSIS_SUCCESS));
+    }
+
+    /**
+     * 번들 요약: 조건별 해당 여부/건수 + 병원·약품 목록 (PDF/엑셀 생성 없음, 번들 단위 캐시)
+     */
+    @GetMapping(value = "/{documentId}/bundle/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<TriageSummaryResponse>> summarizeBundle(
+            @PathVariable UUID documentId,
+            HttpServletRequest request
+    ) {
+        TriageSummaryResponse result = renderScheduler.execute(
+                userKeyOf(request),
+                bundleKeyOf(documentId),
+                "summary:" + documentId,
+                () -> documentService.summarizeBundle(documentId));
+        return ResponseEntity.ok(ApiResponse.successWithData(result, ApiResponseEnum.TRIAGE_SUMMARY_SUCCESS));
+    }
+
+    /**
+     * 페이지 범위 하이라이트 좌표 (pdf.js가 보고 있는 페이지만 요청)
+     * - 문서 단위 집계(7일 누적 등)는 첫 요청에서 한 번 만들어 캐시, 좌표는 요청한 페이지만 계산
+     */
+    @GetMapping(value = "/{documentId}/highlights", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<PageHighlightsResponse>> getPageHighlights(
+            @PathVariable UUID documentId,
+            @RequestParam(name = "condition", defaultValue = "0") int condition,
+            @RequestParam(name = "from", defaultValue = "1") int fromPage,
+            @RequestParam(name = "to", defaultValue = "1") int toPage
+    ) {
+        // 범위 조회는 렌더 상한을 쓰지 않는다 (페이지 수 상한 + PdfWorkExecutor 큐로만 제한)
+        PageHighlightsResponse result = documentService.loadPageHighlights(documentId, condition, fromPage, toPage);
+        return ResponseEntity.ok(ApiResponse.successWithData(result, ApiResponseEnum.PAGE_HIGHLIGHTS_SUCCESS));
     }
 
     @GetMapping
@@ -86,20 +208,54 @@ public class DocumentController {
     }
 
     @GetMapping("/{documentId}/excel")
-    public ResponseEntity<Resource> downloadVisitOver7DaysExcel(
+    public void downloadVisitOver7DaysExcel(
             @PathVariable UUID documentId,
-            @RequestParam int condition
+            @RequestParam int condition,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
-        Resource excel = documentService.downloadExcelByCondition(documentId, condition);
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(
-                        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
-                ))
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + excel.getFilename() + "\"")
-                .header(HttpHeaders.CACHE_CONTROL, "no-store, no-cache, must-revalidate, max-age=0")
-                .header(HttpHeaders.PRAGMA, "no-cache")
-                .body(excel);
+        Resource excel = renderScheduler.execute(
+                userKeyOf(request),
+                bundleKeyOf(documentId),
+                "excel:" + documentId + ":" + condition,
+                () -> documentService.downloadExcelByCondition(documentId, condition));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store, no-cache, must-revalidate, max-age=0");
+        response.setHeader(HttpHeaders.PRAGMA, "no-cache");
+
+        writeResource(request, response, excel,
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "attachment",
+                documentService.excelDownloadNameOf(documentId, condition));
+    }
+
+    // 사용자 키: 인증된 사용자 이름, 없으면 접속 주소 (클라이언트가 보낸 헤더는 믿지 않음)
+    private String userKeyOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    // 원격 저장소 객체는 요청 구간만 range read, 로컬 파일은 sendfile/transferTo
+    private void writeResource(HttpServletRequest request, HttpServletResponse response, Resource resource,
+                               String contentType, String dispositionType, String downloadName) {
+        if (resource instanceof StoredObjectResource stored) {
+            fileResponseWriter.write(request, response, stored.contentLength(), stored::openRange,
+                    contentType, dispositionType, downloadName);
+            return;
+        }
+        fileResponseWriter.write(request, response, pathOf(resource), contentType, dispositionType, downloadName);
+    }
+
+    private Path pathOf(Resource resource) {
+        try {
+            return resource.getFile().toPath();
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+    }
+
+    private String bundleKeyOf(UUID documentId) {
+        return documentRepository.findById(documentId)
+                .map(Document::getBundleKey)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
     }
 }
@@ -0,0 +1,19 @@
+package auto.annotate.domain.document.dto;
+
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * row 필드 좌표 (DirAdj 기준: 왼쪽 위 원점, 단위 pt)
+ * - PDRectangle은 가변이라 캐시(ParsedRowCache/RuleContextCache)에서 공유되는 row에는 이 값만 저장
+ * - 렌더링에서 필요할 때 toRectangle()로 매번 새 PDRectangle을 만든다
+ */
+public record FieldBox(float x, float y, float width, float height) {
+
+    public static FieldBox of(PDRectangle rect) {
+        return new FieldBox(rect.getLowerLeftX(), rect.getLowerLeftY(), rect.getWidth(), rect.getHeight());
+    }
+
+    public PDRectangle toRectangle() {
+        return new PDRectangle(x, y, width, height);
+    }
+}
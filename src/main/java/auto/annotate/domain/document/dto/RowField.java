@@ -0,0 +1,21 @@
+package auto.annotate.domain.document.dto;
+
+/**
+ * 하이라이트 대상이 되는 row 내부 필드
+ * - 파싱 시점에 필드별 좌표(FieldBox)를 기록해 두고, 렌더링에서 그대로 사용한다.
+ */
+public enum RowField {
+    INSTITUTION_NAME,       // 병·의원&약국
+    DAYS_OF_STAY_OR_VISIT,  // 입원(외래)일수, 예: 11(0)
+    SURGERY_TOKEN,          // "…수술" 토큰
+    ROW;                    // row 전체(약제 등)
+
+    public static RowField of(HighlightType type) {
+        return switch (type) {
+            case VISIT_OVER_7_DAYS -> INSTITUTION_NAME;
+            case HAS_HOSPITALIZATION -> DAYS_OF_STAY_OR_VISIT;
+            case HAS_SURGERY -> SURGERY_TOKEN;
+            case MONTH_30_DRUG -> ROW;
+        };
+    }
+}
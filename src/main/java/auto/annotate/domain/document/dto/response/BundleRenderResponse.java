@@ -0,0 +1,33 @@
+package auto.annotate.domain.document.dto.response;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 번들 일괄 렌더링 결과
+ * - target PDF별로 1회 파싱한 결과를 조건별 출력에 공유
+ */
+@Getter
+@Builder
+public class BundleRenderResponse {
+
+    private final String bundleKey;
+    private final List<RenderedFile> files;
+    private final List<HighlightTarget> missingTargets;   // 번들에 없는 target PDF
+    private final long elapsedMs;
+
+    @Getter
+    @Builder
+    public static class RenderedFile {
+        private final Integer condition;          // 통합(레이어) PDF면 null
+        private final HighlightTarget target;
+        private final Set<HighlightType> types;
+        private final String fileName;
+        private final boolean layered;
+    }
+}
@@ -1,14 +1,20 @@
 package auto.annotate.domain.document.dto.response;
 
+import auto.annotate.domain.document.dto.FieldBox;
 import auto.annotate.domain.document.dto.HighlightTarget;
 import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.RowField;
 import lombok.*;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Getter
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor(force = true)
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class PdfRowRecord {
@@ -43,6 +49,24 @@ public class PdfRowRecord {
     @Builder.Default
     private final Set<HighlightType> highlightTypes = new HashSet<>();
 
+    // 파싱 시점에 기록한 필드별 좌표 (DirAdj 기준, 렌더링에서 재검색 없이 사용)
+    // ✅ 캐시된 row를 여러 요청이 동시에 읽으므로 불변(Map.copyOf + FieldBox)으로만 보관
+    @Builder.Default
+    private final Map<RowField, List<FieldBox>> fieldBoxes = Map.of();
+
+    public List<FieldBox> boxesOf(RowField field) {
+        if (fieldBoxes == null) return List.of();
+        return fieldBoxes.getOrDefault(field, List.of());
+    }
+
+    public PdfRowRecord withFieldBoxes(Map<RowField, List<PDRectangle>> boxes) {
+        Map<RowField, List<FieldBox>> copy = new EnumMap<>(RowField.class);
+        boxes.forEach((field, rects) -> copy.put(field, rects.stream().map(FieldBox::of).toList()));
+        return this.toBuilder()
+                .fieldBoxes(Map.copyOf(copy))
+                .build();
+    }
+
     public PdfRowRecord withHighlightTypes(Set<HighlightType> types) {
         return PdfRowRecord.builder()
                 .pageIndex(this.pageIndex)
@@ -66,6 +90,7 @@ public class PdfRowRecord {
                 .treatmentDetail(this.treatmentDetail)
 
                 .highlightTypes(new HashSet<>(types))
+                .fieldBoxes(this.fieldBoxes)
                 .build();
     }
 }
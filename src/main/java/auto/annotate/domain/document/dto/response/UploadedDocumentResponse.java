@@ -0,0 +1,26 @@
+package auto.annotate.domain.document.dto.response;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.entity.Document;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@Builder
+public class UploadedDocumentResponse {
+    private final UUID documentId;
+    private final String bundleKey;
+    private final HighlightTarget target;
+    private final String originalFileName;
+
+    public static UploadedDocumentResponse of(Document document) {
+        return UploadedDocumentResponse.builder()
+                .documentId(document.getId())
+                .bundleKey(document.getBundleKey())
+                .target(document.getTarget())
+                .originalFileName(document.getOriginalFileName())
+                .build();
+    }
+}
@@ -26,6 +26,10 @@ public class Document {
     private String bundleKey;
 
 
+    // 원본 PDF 내용 SHA-256 (같은 내용은 blob 하나를 공유, 기존 row는 null)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "target", length = 30) // nullable로 시작(마이그레이션 편하게)
     private HighlightTarget target;
@@ -36,4 +40,9 @@ public class Document {
         this.bundleKey = bundleKey;
         this.target = target;
     }
+
+    public Document(String originalFileName, String fileUrl, String bundleKey, HighlightTarget target, String contentHash) {
+        this(originalFileName, fileUrl, bundleKey, target);
+        this.contentHash = contentHash;
+    }
 }
@@ -0,0 +1,85 @@
+package auto.annotate.domain.document.extract;
+
+import java.util.Arrays;
+
+/**
+ * 한 페이지 glyph를 객체 없이 배열로 보관
+ * - 좌표계는 TextPosition DirAdj(위에서 아래로) 기준: x, y(baseline), w, h
+ * - 공백 glyph도 그대로 넣는다 (줄 텍스트의 띄어쓰기 판단용)
+ */
+public class GlyphBuffer {
+
+    private int size;
+    private int[] codePoints;
+    private float[] x;
+    private float[] y;
+    private float[] w;
+    private float[] h;
+
+    public GlyphBuffer() {
+        this(512);
+    }
+
+    public GlyphBuffer(int capacity) {
+        int c = Math.max(16, capacity);
+        codePoints = new int[c];
+        x = new float[c];
+        y = new float[c];
+        w = new float[c];
+        h = new float[c];
+    }
+
+    public void add(int codePoint, float gx, float gy, float gw, float gh) {
+        if (size == codePoints.length) grow();
+
+        codePoints[size] = codePoint;
+        x[size] = gx;
+        y[size] = gy;
+        w[size] = gw;
+        h[size] = gh;
+        size++;
+    }
+
+    private void grow() {
+        int c = codePoints.length * 2;
+        codePoints = Arrays.copyOf(codePoints, c);
+        x = Arrays.copyOf(x, c);
+        y = Arrays.copyOf(y, c);
+        w = Arrays.copyOf(w, c);
+        h = Arrays.copyOf(h, c);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int codePoint(int i) {
+        return codePoints[i];
+    }
+
+    public float x(int i) {
+        return x[i];
+    }
+
+    public float y(int i) {
+        return y[i];
+    }
+
+    public float w(int i) {
+        return w[i];
+    }
+
+    public float h(int i) {
+        return h[i];
+    }
+
+    public boolean isWhitespace(int i) {
+        return Character.isWhitespace(codePoints[i]) || codePoints[i] == 0xA0;
+    }
+
+    /** 같은 줄 판정: baseline 차이가 글자 높이의 절반 이내 */
+    public boolean sameLine(int a, int b) {
+        float tolerance = Math.max(h[a], 1f) / 2f;
+        return Math.abs(y[a] - y[b]) <= tolerance;
+    }
+}
@@ -0,0 +1,23 @@
+package auto.annotate.domain.document.extract;
+
+import auto.annotate.common.concurrent.SingleFlightLruCache;
+import auto.annotate.domain.document.dto.FieldBox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 입원 토큰 fallback 결과 캐시 (페이지 범위 하이라이트용)
+ * - 키: 문서 출력 키(내용 해시 + RULE_VERSION) + target → RuleContextCache와 같은 문서 단위
+ * - 값: 페이지(0-based) → 토큰 박스, fallback이 필요 없는 문서(입원 row가 있음)는 빈 맵
+ * - 문서 전체 판정 + 토큰 스캔은 문서당 1회, 이후 범위 요청은 해당 페이지 박스만 꺼낸다
+ */
+@Component
+public class InpatientFallbackCache extends SingleFlightLruCache<String, Map<Integer, List<FieldBox>>> {
+
+    public InpatientFallbackCache(@Value("${rule.fallback-cache.max-entries:64}") int maxEntries) {
+        super("inpatient fallback", maxEntries);
+    }
+}
@@ -0,0 +1,112 @@
+package auto.annotate.domain.document.extract;
+
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 입원 토큰 스캔 단계: N(M)에서 입원일수 N이 1 이상인 토큰 + 좌표
+ * - 페이지당 glyph 추출 1회로 토큰 문자열과 박스를 같이 얻는다 (텍스트 추출/좌표 계산을 따로 하지 않음)
+ * - 하이라이트 PDF fallback과 입원 엑셀 fallback이 같은 스캔 결과를 쓴다
+ * - 토큰이 없는 페이지는 PageSignature 사전 스캔으로 glyph 추출 자체를 건너뛴다
+ */
+public class InpatientTokenScanner {
+
+    // () 와 （） 둘 다 허용
+    private static final Pattern INOUT_ANYWHERE =
+            Pattern.compile("(\\d+)[\\(（](\\d+)[\\)）]");
+
+    private final PageSignatureScanner signatureScanner;
+    private final StreamGlyphExtractor extractor;
+
+    public InpatientTokenScanner() throws IOException {
+        this.signatureScanner = new PageSignatureScanner();
+        this.extractor = new StreamGlyphExtractor();
+    }
+
+    /** 입원 토큰이 있는 페이지만 페이지 순서대로 반환 */
+    public List<PageTokens> scan(PDDocument document) throws IOException {
+        List<PageTokens> out = new ArrayList<>();
+
+        int pageCount = document.getNumberOfPages();
+        for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+            if (!signatureScanner.scanPage(document, pageIndex).isInpatientToken()) continue;
+
+            PageGlyphs glyphs = extractor.extractPage(document, pageIndex);
+            List<InpatientToken> tokens = tokensOf(glyphs);
+            if (!tokens.isEmpty()) out.add(new PageTokens(glyphs, tokens));
+        }
+        return out;
+    }
+
+    public static List<InpatientToken> tokensOf(PageGlyphs glyphs) {
+        List<InpatientToken> tokens = new ArrayList<>();
+
+        Matcher m = INOUT_ANYWHERE.matcher(glyphs.getCompactText());
+        while (m.find()) {
+            int inpatient = parseDays(m.group(1));
+            if (inpatient <= 0) continue;
+
+            String token = m.group(0)
+                    .replace('（', '(')
+                    .replace('）', ')');   // ✅ 괄호 통일 (예: "11(0)")
+
+            tokens.add(new InpatientToken(token, inpatient, glyphs.boxes(m.start(), m.end())));
+        }
+        return tokens;
+    }
+
+    private static int parseDays(String v) {
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            // 자릿수가 너무 긴 값은 0이 아니면 입원으로 본다
+            return v.chars().anyMatch(c -> c != '0') ? Integer.MAX_VALUE : 0;
+        }
+    }
+
+    @Getter
+    public static class PageTokens {
+        private final PageGlyphs glyphs;
+        private final List<InpatientToken> tokens;
+
+        private PageTokens(PageGlyphs glyphs, List<InpatientToken> tokens) {
+            this.glyphs = glyphs;
+            this.tokens = tokens;
+        }
+
+        public int getPageIndex() {
+            return glyphs.getPageIndex();
+        }
+
+        /** row 블록에 이 페이지의 토큰이 들어 있는지 (괄호 종류 무관) */
+        public boolean containsToken(String block) {
+            String normalized = PageGlyphs.compactOf(block)
+                    .replace('（', '(')
+                    .replace('）', ')');
+            for (InpatientToken t : tokens) {
+                if (normalized.contains(t.getText())) return true;
+            }
+            return false;
+        }
+    }
+
+    @Getter
+    public static class InpatientToken {
+        private final String text;
+        private final int inpatientDays;
+        private final List<PDRectangle> boxes;   // DirAdj(위에서 아래로) 좌표
+
+        private InpatientToken(String text, int inpatientDays, List<PDRectangle> boxes) {
+            this.text = text;
+            this.inpatientDays = inpatientDays;
+            this.boxes = boxes;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package auto.annotate.domain.document.extract;
+
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 한 페이지의 추출 결과
+ * - text: 줄 단위 텍스트 (RowGrouper가 묶은 줄을 '\n'으로 연결, 기존 라인 파싱용)
+ * - 공백을 제외한 글자 → glyph 인덱스를 1:1로 보관 → row/필드 좌표를 재검색 없이 계산
+ */
+public class PageGlyphs {
+
+    // 글자 높이 대비 이 이상 벌어지면 띄어쓰기로 본다
+    private static final float WORD_GAP_RATIO = 0.2f;
+    // 글자 높이 대비 이 이상 벌어지면 다른 칸(셀/컬럼)으로 본다
+    private static final float CELL_GAP_RATIO = 1.5f;
+
+    @Getter
+    private final int pageIndex;
+
+    @Getter
+    private final String text;
+
+    private final GlyphBuffer glyphs;
+    private final String compact;
+    private final int[] compactGlyph;   // compact 글자 i → glyph 인덱스
+    private final int[] segmentStarts;  // 줄/칸이 시작하는 compact 인덱스 (오름차순)
+
+    // row는 페이지 텍스트 순서대로 파싱되므로 앞에서부터 차례로 찾는다
+    private int cursor = 0;
+
+    private PageGlyphs(int pageIndex, GlyphBuffer glyphs, String text, String compact, int[] compactGlyph,
+                       int[] segmentStarts) {
+        this.pageIndex = pageIndex;
+        this.glyphs = glyphs;
+        this.text = text;
+        this.compact = compact;
+        this.compactGlyph = compactGlyph;
+        this.segmentStarts = segmentStarts;
+    }
+
+    public static PageGlyphs of(int pageIndex, GlyphBuffer glyphs, RowGrouper grouper) {
+        StringBuilder text = new StringBuilder(glyphs.size() + 64);
+        StringBuilder compact = new StringBuilder(glyphs.size());
+        int[] compactGlyph = new int[glyphs.size()];
+        int compactLen = 0;
+        int[] segmentStarts = new int[16];
+        int segmentCount = 0;
+
+        for (int[] line : grouper.group(glyphs)) {
+            if (!text.isEmpty()) text.append('\n');
+
+            int prev = -1;
+            for (int g : line) {
+                if (glyphs.isWhitespace(g)) {
+                    appendSpace(text);
+                    continue;
+                }
+
+                boolean newSegment = prev < 0;
+                if (prev >= 0) {
+                    float gap = glyphs.x(g) - (glyphs.x(prev) + glyphs.w(prev));
+                    float height = Math.max(glyphs.h(g), 1f);
+                    if (gap > height * WORD_GAP_RATIO) appendSpace(text);
+                    if (gap > height * CELL_GAP_RATIO) newSegment = true;
+                }
+                if (newSegment) {
+                    if (segmentCount == segmentStarts.length) {
+                        segmentStarts = Arrays.copyOf(segmentStarts, segmentStarts.length * 2);
+                    }
+                    segmentStarts[segmentCount++] = compactLen;
+                }
+
+                text.appendCodePoint(glyphs.codePoint(g));
+                // compact는 char 단위 인덱스 → 보조 평면 글자는 두 칸 모두 같은 glyph
+                int chars = Character.charCount(glyphs.codePoint(g));
+                compact.appendCodePoint(glyphs.codePoint(g));
+                for (int k = 0; k < chars; k++) {
+                    if (compactLen == compactGlyph.length) {
+                        compactGlyph = Arrays.copyOf(compactGlyph, compactGlyph.length * 2 + 1);
+                    }
+                    compactGlyph[compactLen++] = g;
+                }
+                prev = g;
+            }
+        }
+
+        return new PageGlyphs(pageIndex, glyphs, text.toString(), compact.toString(),
+                Arrays.copyOf(compactGlyph, compactLen), Arrays.copyOf(segmentStarts, segmentCount));
+    }
+
+    private static void appendSpace(StringBuilder text) {
+        int len = text.length();
+        if (len > 0 && text.charAt(len - 1) != ' ' && text.charAt(len - 1) != '\n') text.append(' ');
+    }
+
+    public String getCompactText() {
+        return compact;
+    }
+
+    public int size() {
+        return compactGlyph.length;
+    }
+
+    /**
+     * 줄/칸(셀) 단위 구간 수
+     * - compact 텍스트는 공백을 다 지운 것이라 구간 경계를 넘는 키워드 매칭은 오탐 → 구간마다 따로 찾는다
+     */
+    public int segmentCount() {
+        return segmentStarts.length;
+    }
+
+    public int segmentStart(int segment) {
+        return segmentStarts[segment];
+    }
+
+    public int segmentEnd(int segment) {
+        return segment + 1 < segmentStarts.length ? segmentStarts[segment + 1] : compactGlyph.length;
+    }
+
+    // compact 글자 i의 좌표 (DirAdj)
+    public float x(int i) {
+        return glyphs.x(compactGlyph[i]);
+    }
+
+    public float y(int i) {
+        return glyphs.y(compactGlyph[i]);
+    }
+
+    public float width(int i) {
+        return glyphs.w(compactGlyph[i]);
+    }
+
+    public float height(int i) {
+        return glyphs.h(compactGlyph[i]);
+    }
+
+    /**
+     * row 원문(공백 무시)이 페이지 어디에 있는지 찾는다.
+     * 못 찾으면 null
+     */
+    public RowSpan locateRow(String rowText) {
+        String target = compactOf(rowText);
+        if (target.isEmpty()) return null;
+
+        int idx = compact.indexOf(target, cursor);
+        if (idx < 0) idx = compact.indexOf(target);
+        if (idx < 0) return null;
+
+        cursor = idx + target.length();
+        return new RowSpan(idx, idx + target.length());
+    }
+
+    /**
+     * [from, toExclusive) 글자 구간의 박스
+     * - 줄이 바뀌면(줄바꿈된 병원명 등) 박스를 나눈다
+     * - 좌표계는 TextPosition의 DirAdj(위에서 아래로) 기준
+     */
+    public List<PDRectangle> boxes(int from, int toExclusive) {
+        List<PDRectangle> out = new ArrayList<>();
+        if (from < 0 || toExclusive > compactGlyph.length || from >= toExclusive) return out;
+
+        int lineStart = from;
+        for (int i = from + 1; i <= toExclusive; i++) {
+            boolean lineBreak = i == toExclusive || !glyphs.sameLine(compactGlyph[i - 1], compactGlyph[i]);
+            if (!lineBreak) continue;
+
+            out.add(toRect(compactGlyph[lineStart], compactGlyph[i - 1]));
+            lineStart = i;
+        }
+        return out;
+    }
+
+    private PDRectangle toRect(int startGlyph, int endGlyph) {
+        float x1 = glyphs.x(startGlyph);
+        float x2 = glyphs.x(endGlyph) + glyphs.w(endGlyph);
+
+        float yTop = glyphs.y(startGlyph);
+        float height = glyphs.h(startGlyph);
+
+        return new PDRectangle(x1, yTop - height, x2 - x1, height);
+    }
+
+    public static String compactOf(String s) {
+        return s == null ? "" : s.replaceAll("\\s+", "");
+    }
+
+    /**
+     * 페이지 안에서 한 row가 차지하는 글자 구간
+     */
+    public class RowSpan {
+        private final int start;
+        private final int end;
+
+        private RowSpan(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /** row 구간 안에서만 field 값을 찾는다 (같은 페이지의 다른 row는 무시) */
+        public List<PDRectangle> boxesOf(String fieldText) {
+            String target = compactOf(fieldText);
+            if (target.isEmpty()) return List.of();
+
+            int idx = compact.indexOf(target, start);
+            if (idx < 0 || idx + target.length() > end) return List.of();
+
+            return boxes(idx, idx + target.length());
+        }
+
+        public List<PDRectangle> boxesOfRow() {
+            return boxes(start, end);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package auto.annotate.domain.document.extract;
+
+import lombok.Getter;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 페이지 사전 스캔 결과 (전체 파싱 전에 룰이 "이 페이지를 볼 필요가 있는지" 판단하는 용도)
+ * - 공백을 뺀 stream 순서 텍스트에서 마커 유무만 기록 (텍스트 자체는 보관하지 않음)
+ * - 마커 판정은 넉넉하게: 불필요한 페이지를 파싱하는 건 괜찮지만 매칭 row를 놓치면 안 됨
+ */
+@Getter
+public class PageSignature {
+
+    private static final String SURGERY_MARKER = "수술";
+
+    // HospitalizationTokenMatcher와 같은 N(M) 토큰 (() 와 （） 둘 다 허용)
+    private static final Pattern INOUT_TOKEN = Pattern.compile("(\\d+)[\\(（](\\d+)[\\)）]");
+
+    private final int pageIndex;
+    private final int glyphCount;
+    private final int lineCount;          // baseline 변화 횟수 기반 줄 수 추정치
+    private final boolean surgeryMarker;  // "수술" 포함
+    private final boolean inpatientToken; // 입원일수(N) > 0 인 N(M) 토큰 포함
+
+    private PageSignature(int pageIndex, int glyphCount, int lineCount,
+                          boolean surgeryMarker, boolean inpatientToken) {
+        this.pageIndex = pageIndex;
+        this.glyphCount = glyphCount;
+        this.lineCount = lineCount;
+        this.surgeryMarker = surgeryMarker;
+        this.inpatientToken = inpatientToken;
+    }
+
+    static PageSignature of(int pageIndex, CharSequence compact, int lineCount) {
+        String text = compact.toString();
+        return new PageSignature(
+                pageIndex,
+                text.length(),
+                lineCount,
+                text.contains(SURGERY_MARKER),
+                hasInpatientToken(text)
+        );
+    }
+
+    private static boolean hasInpatientToken(String text) {
+        Matcher m = INOUT_TOKEN.matcher(text);
+        while (m.find()) {
+            // 앞 숫자가 0이 아닌 자리가 하나라도 있으면 입원일수 > 0 (자릿수 많은 값도 안전)
+            String inpatient = m.group(1);
+            for (int i = 0; i < inpatient.length(); i++) {
+                if (inpatient.charAt(i) != '0') return true;
+            }
+        }
+        return false;
+    }
+}
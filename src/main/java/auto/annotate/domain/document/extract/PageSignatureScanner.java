@@ -0,0 +1,55 @@
+package auto.annotate.domain.document.extract;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.text.PDFTextStreamEngine;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+import java.io.IOException;
+
+/**
+ * 페이지 사전 스캔용 초경량 엔진
+ * - showGlyph를 가로채 유니코드만 이어 붙인다 (TextPosition 생성/폭·높이 계산/좌표 변환 없음)
+ * - 줄 수는 text rendering matrix의 baseline(Y) 변화로만 추정
+ * - 결과는 PageSignature (룰의 mayMatchPage 판단용)
+ */
+public class PageSignatureScanner extends PDFTextStreamEngine {
+
+    private static final float BASELINE_TOLERANCE = 1.0f;
+
+    private final StringBuilder compact = new StringBuilder(4096);
+    private float lastBaseline;
+    private int lineCount;
+
+    public PageSignatureScanner() throws IOException {
+        super();
+    }
+
+    public PageSignature scanPage(PDDocument document, int pageIndex) throws IOException {
+        compact.setLength(0);
+        lastBaseline = Float.NaN;
+        lineCount = 0;
+
+        processPage(document.getPage(pageIndex));
+        return PageSignature.of(pageIndex, compact, lineCount);
+    }
+
+    @Override
+    protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, String unicode,
+                             Vector displacement) {
+        // ✅ super 호출 안 함 → TextPosition을 만들지 않는다
+        if (unicode == null || unicode.isEmpty()) return;
+
+        float baseline = textRenderingMatrix.getTranslateY();
+        if (Float.isNaN(lastBaseline) || Math.abs(baseline - lastBaseline) > BASELINE_TOLERANCE) {
+            lineCount++;
+            lastBaseline = baseline;
+        }
+
+        for (int i = 0; i < unicode.length(); i++) {
+            char c = unicode.charAt(i);
+            if (!Character.isWhitespace(c)) compact.append(c);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package auto.annotate.domain.document.extract;
+
+import auto.annotate.common.concurrent.SingleFlightLruCache;
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 파싱 결과(row + 좌표) 캐시
+ * - 키: 내용 해시 blob(파일명 = sha256.pdf)이면 해시 + target + 페이지 계획 → 경로/수정 시각과 무관, 번들이 달라도 같은 키
+ *   그 외(해시 없는 기존 파일)는 경로 + 크기 + 수정시각
+ * - 룰 적용은 row를 복사해서 표시하므로 캐시된 리스트는 읽기 전용으로만 공유
+ */
+@Slf4j
+@Component
+public class ParsedRowCache extends SingleFlightLruCache<String, List<PdfRowRecord>> {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("^[0-9a-f]{64}\\.pdf$");
+
+    public ParsedRowCache(@Value("${parse.cache.max-entries:64}") int maxEntries) {
+        super("parsed rows", maxEntries);
+    }
+
+    public List<PdfRowRecord> get(Path pdfPath, HighlightTarget target, String pagePlan,
+                                  Supplier<List<PdfRowRecord>> parser) {
+        String key = keyOf(pdfPath, target, pagePlan);
+        if (key == null) return parser.get();
+
+        if (contains(key)) {
+            log.info("parsed rows cache hit: file={}, target={}, pagePlan={}", pdfPath.getFileName(), target, pagePlan);
+        }
+        return get(key, () -> List.copyOf(parser.get()));
+    }
+
+    private String keyOf(Path pdfPath, HighlightTarget target, String pagePlan) {
+        String name = pdfPath.getFileName().toString();
+        if (BLOB_NAME.matcher(name).matches()) {
+            return name.substring(0, name.length() - ".pdf".length()) + "|" + target + "|" + pagePlan;
+        }
+
+        try {
+            return pdfPath.toAbsolutePath() + "|" + Files.size(pdfPath) + "|"
+                    + Files.getLastModifiedTime(pdfPath).toMillis() + "|" + target + "|" + pagePlan;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package auto.annotate.domain.document.extract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 위치 기준 정렬: 위→아래로 줄을 묶고 줄 안은 왼→오른쪽
+ * - PDFTextStripper(sortByPosition=true)에 해당, content stream 순서가 뒤섞인 문서용
+ * - 정렬은 (좌표 키 << 32 | glyph 번호)를 묶은 long[]로 한다 (boxing/comparator 없음)
+ */
+public class PositionSortedRowGrouper implements RowGrouper {
+
+    @Override
+    public List<int[]> group(GlyphBuffer glyphs) {
+        List<int[]> lines = new ArrayList<>();
+
+        int n = glyphs.size();
+        if (n == 0) return lines;
+
+        // y 순 정렬 후 y가 같은 구간만 x 순으로 다시 정렬 → (y, x) 순서
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) order[i] = pack(glyphs.y(i), i);
+        Arrays.sort(order);
+
+        long[] tie = new long[n];
+        for (int from = 0; from < n; ) {
+            int to = from + 1;
+            while (to < n && highOf(order[to]) == highOf(order[from])) to++;
+            if (to - from > 1) sortRunByX(glyphs, order, from, to, tie);
+            from = to;
+        }
+
+        // 줄 안에서는 (x, 줄에 들어온 순서)로 정렬 → x가 같으면 위 정렬 순서 유지
+        long[] line = new long[n];
+        int[] members = new int[n];
+        int len = 0;
+        int anchor = -1;
+        for (long key : order) {
+            int idx = indexOf(key);
+            if (anchor >= 0 && !glyphs.sameLine(anchor, idx)) {
+                lines.add(sortedByX(line, members, len));
+                len = 0;
+                anchor = -1;
+            }
+            members[len] = idx;
+            line[len] = pack(glyphs.x(idx), len);
+            len++;
+            if (anchor < 0) anchor = idx;
+        }
+        if (len > 0) lines.add(sortedByX(line, members, len));
+
+        return lines;
+    }
+
+    private void sortRunByX(GlyphBuffer glyphs, long[] order, int from, int to, long[] tie) {
+        for (int i = from; i < to; i++) {
+            int idx = indexOf(order[i]);
+            tie[i] = pack(glyphs.x(idx), idx);
+        }
+        Arrays.sort(tie, from, to);
+        for (int i = from; i < to; i++) {
+            order[i] = pack(glyphs.y(indexOf(tie[i])), indexOf(tie[i]));
+        }
+    }
+
+    private int[] sortedByX(long[] line, int[] members, int len) {
+        Arrays.sort(line, 0, len);
+        int[] out = new int[len];
+        for (int i = 0; i < len; i++) out[i] = members[indexOf(line[i])];
+        return out;
+    }
+
+    // 위 32비트: Float.compare 순서를 지키는 정수 키, 아래 32비트: 번호 (같은 좌표면 번호 순)
+    private static long pack(float coord, int idx) {
+        int bits = Float.floatToIntBits(coord);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (idx & 0xffffffffL);
+    }
+
+    private static int highOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int indexOf(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,12 @@
+package auto.annotate.domain.document.extract;
+
+import java.util.List;
+
+/**
+ * glyph → 줄 묶기 전략
+ * - 반환: 줄마다 glyph 인덱스 배열 (줄 안에서는 읽는 순서)
+ */
+public interface RowGrouper {
+
+    List<int[]> group(GlyphBuffer glyphs);
+}
@@ -0,0 +1,63 @@
+package auto.annotate.domain.document.extract;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStreamEngine;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+
+/**
+ * PDFTextStripper 대신 쓰는 가벼운 glyph 추출기
+ * - PDFTextStreamEngine이 계산한 glyph 좌표/유니코드만 GlyphBuffer(배열)에 쌓는다
+ * - bead/article 분리, 정렬, 단어/문단 구분 휴리스틱, 문자열 조립을 하지 않음 (고정 양식 문서라 불필요)
+ * - 줄 묶기는 RowGrouper로 교체 가능
+ */
+public class StreamGlyphExtractor extends PDFTextStreamEngine {
+
+    private final RowGrouper grouper;
+    private GlyphBuffer current;
+
+    public StreamGlyphExtractor() throws IOException {
+        this(new StreamOrderRowGrouper());
+    }
+
+    public StreamGlyphExtractor(RowGrouper grouper) throws IOException {
+        super();
+        this.grouper = grouper;
+    }
+
+    public PageGlyphs extractPage(PDDocument document, int pageIndex) throws IOException {
+        current = new GlyphBuffer();
+        try {
+            processPage(document.getPage(pageIndex));
+            return PageGlyphs.of(pageIndex, current, grouper);
+        } finally {
+            current = null;
+        }
+    }
+
+    @Override
+    protected void processTextPosition(TextPosition text) {
+        if (current == null) return;
+
+        String unicode = text.getUnicode();
+        if (unicode == null || unicode.isEmpty()) return;
+
+        float x = text.getXDirAdj();
+        float y = text.getYDirAdj();
+        float w = text.getWidthDirAdj();
+        float h = text.getHeightDir();
+
+        // 합자(ligature) 등 여러 글자면 같은 박스를 나눠 쓴다
+        int count = unicode.codePointCount(0, unicode.length());
+        float step = count > 1 ? w / count : w;
+
+        int i = 0;
+        for (int offset = 0; offset < unicode.length(); ) {
+            int cp = unicode.codePointAt(offset);
+            current.add(cp, x + step * i, y, step, h);
+            offset += Character.charCount(cp);
+            i++;
+        }
+    }
+}
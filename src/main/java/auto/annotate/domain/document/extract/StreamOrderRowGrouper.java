@@ -0,0 +1,40 @@
+package auto.annotate.domain.document.extract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * content stream 순서 그대로, baseline이 바뀌는 곳에서 줄을 끊는다
+ * - PDFTextStripper(sortByPosition=false)와 같은 줄 구성 → 기존 row 파싱 정규식이 그대로 맞는다
+ * - 정렬이 없어서 가장 싸다 (고정 양식 문서 기본값)
+ */
+public class StreamOrderRowGrouper implements RowGrouper {
+
+    @Override
+    public List<int[]> group(GlyphBuffer glyphs) {
+        List<int[]> lines = new ArrayList<>();
+        int n = glyphs.size();
+        if (n == 0) return lines;
+
+        int[] buf = new int[n];
+        int len = 0;
+        int anchor = -1;   // 현재 줄의 기준 glyph (공백 제외)
+
+        for (int i = 0; i < n; i++) {
+            boolean ws = glyphs.isWhitespace(i);
+
+            if (!ws && anchor >= 0 && !glyphs.sameLine(anchor, i)) {
+                lines.add(Arrays.copyOf(buf, len));
+                len = 0;
+                anchor = -1;
+            }
+
+            buf[len++] = i;
+            if (!ws && anchor < 0) anchor = i;
+        }
+
+        if (len > 0) lines.add(Arrays.copyOf(buf, len));
+        return lines;
+    }
+}
@@ -12,4 +12,8 @@ public interface DocumentRepository extends JpaRepository<Document, UUID> {
 
     Optional<Document> findByBundleKeyAndTarget(String bundleKey, HighlightTarget target);
 
+    Optional<Document> findFirstByContentHash(String contentHash);
+
+    boolean existsByContentHash(String contentHash);
+
 }
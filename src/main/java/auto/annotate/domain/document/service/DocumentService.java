@@ -1,18 +1,43 @@
 package auto.annotate.domain.document.service;
 
+import auto.annotate.domain.document.dto.response.BundleRenderResponse;
 import auto.annotate.domain.document.entity.Document;
+import auto.annotate.domain.highlight.dto.response.BundleAnalysisResponse;
+import auto.annotate.domain.highlight.dto.response.PageHighlightsResponse;
+import auto.annotate.domain.highlight.dto.response.TriageSummaryResponse;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.UUID;
 
 public interface DocumentService {
    List<Document> save(List<MultipartFile> multipartFile);
 
-   Resource loadHighlightedFileAsResource(UUID documentId, int condition);
+   List<Document> saveFromPaths(List<Path> files);
+
+   Document saveStream(InputStream in, String originalFilename, String bundleKey);
+
+   Resource loadHighlightedFileAsResource(UUID documentId, int condition, boolean flatten, boolean hitsOnly);
+
+   Resource loadLayeredFileAsResource(UUID documentId, int condition, boolean flatten, boolean hitsOnly);
 
 //   Resource loadHighlightedByBundle(UUID documentId, int condition);
 
    Resource downloadExcelByCondition(UUID documentId, int condition);
+
+   /** 다운로드 응답(Content-Disposition)에 쓰는 사용자용 파일명 (내부 캐시 파일명과 별개) */
+   String highlightedDownloadNameOf(UUID documentId, int condition, boolean layered, boolean flatten, boolean hitsOnly);
+
+   String excelDownloadNameOf(UUID documentId, int condition);
+
+   BundleRenderResponse renderBundle(UUID documentId, boolean combined);
+
+   BundleAnalysisResponse analyzeBundle(UUID documentId);
+
+   TriageSummaryResponse summarizeBundle(UUID documentId);
+
+   PageHighlightsResponse loadPageHighlights(UUID documentId, int condition, int fromPage, int toPage);
 }
@@ -1,24 +1,55 @@
 package auto.annotate.domain.document.service;
 
+import auto.annotate.common.concurrent.PdfWorkExecutor;
+import auto.annotate.common.concurrent.RenderScheduler;
+import auto.annotate.common.concurrent.SingleFlight;
 import auto.annotate.common.exception.BaseException;
 import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.common.trace.DiagnosticTrace;
 import auto.annotate.common.utils.SurgeryTokenMatcher;
+import auto.annotate.domain.document.dto.FieldBox;
 import auto.annotate.domain.document.dto.HighlightTarget;
 import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.RowField;
+import auto.annotate.domain.document.dto.response.BundleRenderResponse;
 import auto.annotate.domain.document.dto.response.PdfRowRecord;
 import auto.annotate.domain.document.entity.Document;
+import auto.annotate.domain.document.extract.InpatientFallbackCache;
+import auto.annotate.domain.document.extract.InpatientTokenScanner;
+import auto.annotate.domain.document.extract.PageGlyphs;
+import auto.annotate.domain.document.extract.ParsedRowCache;
+import auto.annotate.domain.document.extract.PageSignature;
+import auto.annotate.domain.document.extract.PageSignatureScanner;
+import auto.annotate.domain.document.extract.StreamGlyphExtractor;
 import auto.annotate.domain.document.repository.DocumentRepository;
+import auto.annotate.domain.document.storage.BlobSweeper;
+import auto.annotate.domain.document.storage.ExcelArtifactStore;
+import auto.annotate.domain.document.storage.StoredObjectResource;
+import auto.annotate.domain.document.storage.ObjectStorage;
+import auto.annotate.domain.document.storage.PdfIngestor;
+import auto.annotate.domain.highlight.bundle.BundleAnalyzer;
+import auto.annotate.domain.highlight.bundle.BundleIndex;
+import auto.annotate.domain.highlight.bundle.TriageSummaryCache;
+import auto.annotate.domain.highlight.dto.response.BundleAnalysisResponse;
+import auto.annotate.domain.highlight.dto.response.PageHighlightsResponse;
+import auto.annotate.domain.highlight.dto.response.TriageSummaryResponse;
+import auto.annotate.domain.highlight.overlay.HighlightAnnotationBatch;
+import auto.annotate.domain.highlight.overlay.HighlightAppearances;
+import auto.annotate.domain.highlight.overlay.HighlightLayers;
 import auto.annotate.domain.highlight.overlay.HighlightMark;
+import auto.annotate.domain.highlight.overlay.HitPageExtract;
 import auto.annotate.domain.highlight.overlay.PdfOverlayRenderer;
+import auto.annotate.domain.highlight.rule.PagePlan;
+import auto.annotate.domain.highlight.rule.RuleContext;
+import auto.annotate.domain.highlight.rule.RuleContextCache;
+import auto.annotate.domain.highlight.rule.RuleEvaluation;
+import auto.annotate.domain.highlight.rule.RulePlanner;
 import auto.annotate.domain.highlight.service.HighlightService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationTextMarkup;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.pdfbox.text.TextPosition;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -30,11 +61,16 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -49,25 +85,35 @@ public class DocumentServiceImpl implements DocumentService {
     private final DocumentRepository documentRepository;
     private final HighlightService highlightService;
     private final SurgeryTokenMatcher surgeryTokenMatcher;
+    private final BundleAnalyzer bundleAnalyzer;
+    private final PdfWorkExecutor pdfWorkExecutor;
+    private final ExcelArtifactStore excelArtifactStore;
+    private final PdfIngestor pdfIngestor;
+    private final ParsedRowCache parsedRowCache;
+    private final ObjectStorage objectStorage;
+    private final BlobSweeper blobSweeper;
+    private final RuleContextCache ruleContextCache;
+    private final InpatientFallbackCache inpatientFallbackCache;
+    private final TriageSummaryCache triageSummaryCache;
 
     @Value("${pdf.file.upload-dir}")
     private String uploadDir;
 
+    // 페이지 범위 하이라이트 1회 요청에 허용하는 최대 페이지 수
+    @Value("${highlight.page-range.max-pages:20}")
+    private int maxPageRange;
+
+    private static final String BLOB_DIR = "blobs";
+
+    // ✅ 같은 (bundleKey, target, condition) 출력은 동시에 하나만 생성, 나머지는 결과 공유
+    private final SingleFlight<String, Resource> outputFlights = new SingleFlight<>();
+
     @Override
     public List<Document> save(List<MultipartFile> multipartFiles) {
         String bundleKey = java.util.UUID.randomUUID().toString();
         List<Document> savedDocuments = new ArrayList<>();
         // 1. 파일 시스템 저장 경로 준비 및 고유 식별자 (ID) 결정
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-        if (!Files.exists(uploadPath)) {
-            try {
-                Files.createDirectories(uploadPath);
-            } catch (IOException e) {
-                // 디렉터리 생성 실패 시 처리 (옵션)
-                throw new RuntimeException("Could not create upload directory!", e);
-            }
-        }
-
+        Path uploadPath = prepareUploadPath();
 
         for (MultipartFile multipartFile : multipartFiles) {
             // 파일이 비어있는 경우(null이거나 크기가 0) 건너뜁니다.
@@ -75,41 +121,136 @@ public class DocumentServiceImpl implements DocumentService {
                 continue;
             }
 
-            UUID id = UUID.randomUUID();
-            String originalFilename = multipartFile.getOriginalFilename();
-            String storedFilename = id.toString() + ".pdf";
+            // 2. 디스크에 파일 저장 (크기/페이지 제한 + 해시를 저장하면서 같이 계산)
+            try (InputStream in = multipartFile.getInputStream()) {
+                savedDocuments.add(storeDocument(in, multipartFile.getOriginalFilename(), uploadPath, bundleKey));
+            } catch (IOException e) {
+                throw new BaseException(ExceptionEnum.FILE_SAVE_FAILED);
+            }
+        }
+        return savedDocuments;
+    }
 
-            Path targetLocation = uploadPath.resolve(storedFilename);
+    /**
+     * 로컬 파일 경로로 번들 저장 (배치 처리용)
+     * - 업로드와 같은 경로/분류 로직을 탄다
+     */
+    @Override
+    public List<Document> saveFromPaths(List<Path> files) {
+        String bundleKey = java.util.UUID.randomUUID().toString();
+        List<Document> savedDocuments = new ArrayList<>();
+        Path uploadPath = prepareUploadPath();
 
-            // 2. 디스크에 파일 저장
-            try {
-                Files.copy(multipartFile.getInputStream(), targetLocation);
+        for (Path file : files) {
+            if (file == null || !Files.isRegularFile(file)) continue;
+
+            try (InputStream in = Files.newInputStream(file)) {
+                savedDocuments.add(storeDocument(in, file.getFileName().toString(), uploadPath, bundleKey));
             } catch (IOException e) {
                 throw new BaseException(ExceptionEnum.FILE_SAVE_FAILED);
             }
+        }
+        return savedDocuments;
+    }
+
+    /**
+     * 요청 본문(PDF 바이트)을 그대로 디스크에 저장 — multipart 버퍼링 없이 1회 읽기
+     * - bundleKey가 없으면 새 번들을 만든다 (응답의 bundleKey로 다음 파일을 이어서 올림)
+     */
+    @Override
+    public Document saveStream(InputStream in, String originalFilename, String bundleKey) {
+        String key = (bundleKey == null || bundleKey.isBlank()) ? UUID.randomUUID().toString() : bundleKey;
+        try {
+            UUID.fromString(key);
+        } catch (IllegalArgumentException e) {
+            throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
+        }
+
+        try {
+            return storeDocument(in, originalFilename, prepareUploadPath(), key);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_SAVE_FAILED);
+        }
+    }
+
+    private Path prepareUploadPath() {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        if (!Files.exists(uploadPath)) {
+            try {
+                Files.createDirectories(uploadPath);
+            } catch (IOException e) {
+                // 디렉터리 생성 실패 시 처리 (옵션)
+                throw new RuntimeException("Could not create upload directory!", e);
+            }
+        }
+        return uploadPath;
+    }
 
-            HighlightTarget target = detectHighlightTargetFromFile(targetLocation);
+    /**
+     * 내용 해시 기준 저장: 같은 바이트는 blob 하나만 두고, Document row만 번들마다 새로 만든다
+     * - 이미 분류된 적 있는 내용이면 target 판별(PDF 로드)도 생략
+     * - s3: 이 업로드 전용 임시 파일로 받아 버킷에 올린 뒤 로컬에는 남기지 않는다 (디스크 캐시로 이동)
+     */
+    private Document storeDocument(InputStream in, String originalFilename, Path uploadPath, String bundleKey)
+            throws IOException {
+        Path blobRoot = uploadPath.resolve(BLOB_DIR);
+        boolean remote = objectStorage.isRemote();
+
+        PdfIngestor.IngestResult ingested = remote
+                ? pdfIngestor.ingestStaged(in, blobRoot)
+                : pdfIngestor.ingest(in, blobRoot);
+        try {
+            return storeIngested(ingested, originalFilename, uploadPath, bundleKey);
+        } finally {
+            // s3: 저장소가 가져갔으면 이미 없음, 이미 버킷에 있었거나 실패했으면 여기서 정리
+            if (remote) Files.deleteIfExists(ingested.getPath());
+        }
+    }
+
+    private Document storeIngested(PdfIngestor.IngestResult ingested, String originalFilename,
+                                   Path uploadPath, String bundleKey) {
+        Path blob = ingested.getPath();
+        String blobKey = ObjectStorage.keyOf(uploadPath,
+                PdfIngestor.blobPathOf(uploadPath.resolve(BLOB_DIR), ingested.getSha256()));
 
-            Document document = new Document(
-                    originalFilename,
-                    storedFilename,
-                    bundleKey,
-                    target
-            );
+        Optional<Document> known = documentRepository.findFirstByContentHash(ingested.getSha256());
 
-            Document savedDocument = documentRepository.save(document);
-            savedDocuments.add(savedDocument);
+        HighlightTarget target;
+        if (known.isPresent() && known.get().getTarget() != null) {
+            target = known.get().getTarget();
+            log.info("dedup hit: sha256={}, target={}", ingested.getSha256(), target);
+        } else {
+            // 분류 실패해도 blob은 지우지 않는다: 같은 바이트의 동시 업로드가 이미 쓰고 있을 수 있음
+            // → 참조 없는 blob은 BlobSweeper가 유예 시간 뒤에 정리
+            target = pdfWorkExecutor.call(() -> detectHighlightTargetFromFile(blob));
         }
-        return savedDocuments;
+
+        if (!objectStorage.exists(blobKey)) {
+            objectStorage.adopt(blobKey, blob);
+        }
+
+        Document document = new Document(
+                originalFilename,
+                blobKey,
+                bundleKey,
+                target,
+                ingested.getSha256()
+        );
+
+        Document saved = documentRepository.save(document);
+        blobSweeper.sweepIfDue();
+        return saved;
     }
 
 
     /**
      * GET /document/{id}/highlighted
      * 사용자가 요청할 때 하이라이트 PDF를 생성(캐시)하고 Resource로 반환
+     * - flatten=true면 주석 대신 페이지 내용에 직접 그린 파일 (별도 캐시)
+     * - hitsOnly=true면 하이라이트가 있는 페이지만 뽑은 파일 (별도 캐시)
      */
     @Override
-    public Resource loadHighlightedFileAsResource(UUID documentId, int condition) {
+    public Resource loadHighlightedFileAsResource(UUID documentId, int condition, boolean flatten, boolean hitsOnly) {
 
         Document base = documentRepository.findById(documentId)
                 .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
@@ -122,55 +263,521 @@ public class DocumentServiceImpl implements DocumentService {
         Document targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, targetToRender)
                 .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-        Path originalPdfPath = Paths.get(uploadDir, targetDoc.getFileUrl());
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
 
         if (!Files.exists(originalPdfPath)) {
             throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
         }
 
-        // 5) parse -> applyHighlights -> generate
-        List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, targetToRender);
-        List<PdfRowRecord> highlightedRecords = highlightService.applyHighlights(rows, condition);
+        Path out = resolveHighlightedOutputPath(outputKeyOf(targetDoc), targetToRender, condition, flatten, hitsOnly);
+
+        return outputFlights.run(out.toString(), () -> {
+            // ✅ 같은 내용/룰 버전의 결과(일괄 렌더링 등)가 있으면 재사용
+            if (isUpToDate(out, originalPdfPath, targetDoc)) {
+                log.info("highlighted cache hit: bundleKey={}, condition={}", bundleKey, condition);
+                return new FileSystemResource(out);
+            }
+            Resource shared = fetchShared(out);
+            if (shared != null) return shared;
+
+            // 5) parse(후보 페이지만) -> applyHighlights -> generate
+            RenderScheduler.admitColdWork();
+            PagePlan plan = highlightService.planPages(targetToRender, EnumSet.of(type));
+            List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, targetToRender, plan);
+            List<PdfRowRecord> highlightedRecords = highlightService.applyHighlights(rows, condition);
 
-        long marked = highlightedRecords.stream()
-                .filter(r -> r.getHighlightTypes() != null && !r.getHighlightTypes().isEmpty())
-                .count();
-        log.info("before generate: bundleKey={}, targetToRender={}, condition={}, markedRows={}",
-                bundleKey, targetToRender, condition, marked);
+            long marked = highlightedRecords.stream()
+                    .filter(r -> r.getHighlightTypes() != null && !r.getHighlightTypes().isEmpty())
+                    .count();
+            log.info("before generate: bundleKey={}, targetToRender={}, condition={}, markedRows={}",
+                    bundleKey, targetToRender, condition, marked);
 
-        Path out = resolveHighlightedOutputPath(bundleKey, targetToRender, condition);
-        generateHighlightedPdf(highlightedRecords, originalPdfPath, out, condition);
+            generateHighlightedPdf(highlightedRecords, originalPdfPath, out, EnumSet.of(type), false, flatten, hitsOnly);
+            publish(out);
 
-        return new FileSystemResource(out);
+            return new FileSystemResource(out);
+        });
     }
 
-    private static final Pattern INOUT_ANYWHERE =
-            Pattern.compile("(\\d+)[\\(（](\\d+)[\\)）]");
+    /**
+     * GET /document/{id}/highlighted?layered=true
+     * condition이 가리키는 target PDF 하나에 그 target의 모든 조건을 레이어(OCG)로 겹쳐 그린다
+     * - 조건별 파일 대신 target당 파일 1개만 캐시
+     */
+    @Override
+    public Resource loadLayeredFileAsResource(UUID documentId, int condition, boolean flatten, boolean hitsOnly) {
+
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
+
+        String bundleKey = base.getBundleKey();
+        HighlightTarget targetToRender = mapConditionToType(condition).getTarget();
+
+        Document targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, targetToRender)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
+
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
+        if (!Files.exists(originalPdfPath)) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+
+        Path out = resolveLayeredOutputPath(outputKeyOf(targetDoc), targetToRender, flatten, hitsOnly);
+
+        return outputFlights.run(out.toString(), () -> {
+            if (isUpToDate(out, originalPdfPath, targetDoc)) {
+                log.info("layered cache hit: bundleKey={}, target={}", bundleKey, targetToRender);
+                return new FileSystemResource(out);
+            }
+            Resource shared = fetchShared(out);
+            if (shared != null) return shared;
+
+            RenderScheduler.admitColdWork();
+            Set<HighlightType> types = EnumSet.noneOf(HighlightType.class);
+            for (int c : conditionsOf(targetToRender)) {
+                types.add(mapConditionToType(c));
+            }
+
+            List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, targetToRender,
+                    highlightService.planPages(targetToRender, types));
+
+            List<PdfRowRecord> applied = highlightService.evaluate(rows, types).getRecords();
+            generateHighlightedPdf(applied, originalPdfPath, out, types, true, flatten, hitsOnly);
+            publish(out);
+
+            return new FileSystemResource(out);
+        });
+    }
+
+    /**
+     * GET /document/{id}/highlights?from=&to=
+     * 요청한 페이지 범위의 하이라이트 좌표만 계산 (pdf.js 점진 렌더링용)
+     * - row는 문서 전체 파싱 결과(ParsedRowCache, 하이라이트 PDF와 같은 항목)에서 범위 페이지만 골라 쓴다
+     * - 문서 단위 집계가 필요한 룰(7일 누적 등): 집계는 문서당 1회 만들어 RuleContextCache에 두고
+     *   이후 범위 요청은 해당 페이지 row만 캐시된 집계로 판정
+     * - 입원 조건은 하이라이트 PDF와 같은 fallback(문서에 입원 row가 없으면 입원 토큰 표시)까지 적용
+     */
+    @Override
+    public PageHighlightsResponse loadPageHighlights(UUID documentId, int condition, int fromPage, int toPage) {
+        if (fromPage < 1 || toPage < fromPage || toPage - fromPage + 1 > maxPageRange) {
+            throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
+        }
+
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-    private List<String> findHospitalizationTokensOnPage(PDDocument document, int pageIndex) throws IOException {
-        PDFTextStripper stripper = new PDFTextStripper();
-        stripper.setStartPage(pageIndex + 1);
-        stripper.setEndPage(pageIndex + 1);
+        HighlightType type = mapConditionToType(condition);
+        if (type == null) throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
+        HighlightTarget target = type.getTarget();
 
-        String norm = stripper.getText(document).replaceAll("\\s+", "");
-        List<String> tokens = new ArrayList<>();
+        Document targetDoc = documentRepository.findByBundleKeyAndTarget(base.getBundleKey(), target)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-        Matcher m = INOUT_ANYWHERE.matcher(norm);
-        while (m.find()) {
-            int inpatient = safeParseInt(m.group(1));
-            if (inpatient > 0) {
-                String token = m.group(0)
-                        .replace('（', '(')
-                        .replace('）', ')');   // ✅ 괄호 통일
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
+        if (!Files.exists(originalPdfPath)) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
 
-                tokens.add(token);           // 예: "11(0)"
+        Set<HighlightType> types = EnumSet.of(type);
+        int fromIndex = fromPage - 1;
+        int toIndex = toPage - 1;
+
+        // ✅ 범위 row도 문서 전체 파싱 1개(ParsedRowCache, 하이라이트 PDF와 같은 항목)에서 잘라 쓴다
+        //    → 범위마다 캐시 항목을 만들지 않음
+        boolean needsAggregates = highlightService.requiresAggregates(types);
+        List<PdfRowRecord> rows = needsAggregates
+                ? parsePdfToRows(originalPdfPath, target)
+                : parsePdfToRows(originalPdfPath, target, highlightService.planPages(target, types));
+
+        boolean aggregatesCached = false;
+        RuleContext context = null;
+        if (needsAggregates) {
+            // ✅ 집계는 문서 전체 row 기준 → 문서당 1회 만들어 캐시
+            String contextKey = outputKeyOf(targetDoc) + "|" + target + "|" + types;
+            aggregatesCached = ruleContextCache.contains(contextKey);
+            context = ruleContextCache.get(contextKey, () -> highlightService.aggregate(rows, types));
+        }
+
+        List<PdfRowRecord> scope = rows.stream()
+                .filter(r -> r.getPageIndex() >= fromIndex && r.getPageIndex() <= toIndex)
+                .toList();
+        List<PdfRowRecord> applied = context != null
+                ? highlightService.evaluate(scope, types, context).getRecords()
+                : highlightService.evaluate(scope, types).getRecords();
+
+        Map<Integer, List<PageHighlightsResponse.Box>> boxesByPage = new TreeMap<>();
+        for (PdfRowRecord record : applied) {
+            if (record.getHighlightTypes() == null || !record.getHighlightTypes().contains(type)) continue;
+
+            // ✅ 파싱 시점 DirAdj 좌표(왼쪽 위 원점) 그대로 전달
+            for (FieldBox box : record.boxesOf(RowField.of(type))) {
+                addBox(boxesByPage, record.getPageIndex(), box, record.getInstitutionName());
+            }
+        }
+
+        // ✅ 하이라이트 PDF와 같은 규칙: 입원 row가 문서 전체에 하나도 없으면 입원 토큰 자체를 표시
+        //    판정 + 토큰 스캔은 문서당 1회 (InpatientFallbackCache), 범위 요청은 해당 페이지 박스만
+        if (types.contains(HighlightType.HAS_HOSPITALIZATION)) {
+            Map<Integer, List<FieldBox>> fallback = inpatientFallbackCache.get(
+                    outputKeyOf(targetDoc) + "|" + target,
+                    () -> hospitalizationFallbackBoxes(originalPdfPath, rows, types));
+            for (int pageIndex = fromIndex; pageIndex <= toIndex; pageIndex++) {
+                for (FieldBox box : fallback.getOrDefault(pageIndex, List.of())) {
+                    addBox(boxesByPage, pageIndex, box, null);
+                }
             }
         }
-        log.info("[HOSP_TOKEN_SCAN] pageIndex={}, tokens={}", pageIndex, tokens);
 
-        return tokens;
+        List<PageHighlightsResponse.PageHighlights> pages = new ArrayList<>();
+        for (Map.Entry<Integer, List<PageHighlightsResponse.Box>> entry : boxesByPage.entrySet()) {
+            pages.add(PageHighlightsResponse.PageHighlights.builder()
+                    .page(entry.getKey())
+                    .boxes(entry.getValue())
+                    .build());
+        }
+
+        return PageHighlightsResponse.builder()
+                .type(type)
+                .fromPage(fromPage)
+                .toPage(toPage)
+                .aggregatesCached(aggregatesCached)
+                .pages(pages)
+                .build();
     }
 
+    /**
+     * 문서 전체 row로 입원 fallback 여부를 판정하고, 필요하면 입원 토큰 박스를 페이지별로 모은다
+     * - fallback이 필요 없으면 빈 맵
+     */
+    private Map<Integer, List<FieldBox>> hospitalizationFallbackBoxes(Path pdfPath, List<PdfRowRecord> rows,
+                                                                      Set<HighlightType> types) {
+        List<PdfRowRecord> applied = highlightService.evaluate(rows, types).getRecords();
+        if (!needsHospitalizationFallback(applied, types)) return Map.of();
+
+        return pdfWorkExecutor.call(() -> {
+            try (PDDocument document = PDDocument.load(pdfPath.toFile())) {
+                Map<Integer, List<FieldBox>> out = new HashMap<>();
+                for (InpatientTokenScanner.PageTokens pageTokens : new InpatientTokenScanner().scan(document)) {
+                    List<FieldBox> boxes = new ArrayList<>();
+                    for (InpatientTokenScanner.InpatientToken token : pageTokens.getTokens()) {
+                        for (PDRectangle rect : token.getBoxes()) boxes.add(FieldBox.of(rect));
+                    }
+                    out.put(pageTokens.getPageIndex(), List.copyOf(boxes));
+                }
+                return Map.copyOf(out);
+            } catch (IOException e) {
+                throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
+            }
+        });
+    }
+
+    private void addBox(Map<Integer, List<PageHighlightsResponse.Box>> boxesByPage, int pageIndex,
+                        FieldBox box, String institutionName) {
+        boxesByPage.computeIfAbsent(pageIndex + 1, k -> new ArrayList<>())
+                .add(PageHighlightsResponse.Box.builder()
+                        .x(box.x())
+                        .y(box.y())
+                        .width(box.width())
+                        .height(box.height())
+                        .institutionName(institutionName)
+                        .build());
+    }
+
+    /**
+     * 입원 조건인데 문서 전체에서 입원 row 박스가 하나도 없으면 입원 토큰(N(M)) fallback
+     * - 하이라이트 PDF와 페이지 범위 API가 같은 판정을 쓴다
+     */
+    private boolean needsHospitalizationFallback(List<PdfRowRecord> applied, Set<HighlightType> types) {
+        if (!types.contains(HighlightType.HAS_HOSPITALIZATION)) return false;
+        if (applied == null) return true;
+
+        for (PdfRowRecord record : applied) {
+            if (record.getHighlightTypes() == null
+                    || !record.getHighlightTypes().contains(HighlightType.HAS_HOSPITALIZATION)) continue;
+            if (!record.boxesOf(RowField.of(HighlightType.HAS_HOSPITALIZATION)).isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 결과 파일 키: 하이라이트는 target PDF 내용만으로 정해지므로 내용 해시 + 룰 버전
+     * - 다른 번들에 같은 PDF가 올라와도 같은 결과 파일을 재사용
+     * - 해시가 없는 기존 문서는 bundleKey 기준
+     */
+    private String outputKeyOf(Document targetDoc) {
+        if (targetDoc.getContentHash() == null) return targetDoc.getBundleKey();
+        return targetDoc.getContentHash().substring(0, 32) + "-r" + RulePlanner.RULE_VERSION;
+    }
+
+    private static final int[] CONDITIONS = {0, 1, 2, 3};
+
+    private List<Integer> conditionsOf(HighlightTarget target) {
+        List<Integer> out = new ArrayList<>();
+        for (int condition : CONDITIONS) {
+            if (mapConditionToType(condition).getTarget() == target) out.add(condition);
+        }
+        return out;
+    }
+
+    /**
+     * 번들 일괄 렌더링
+     * - target PDF마다 파싱(텍스트+좌표 추출)은 1회만 하고, 그 row를 조건별 렌더링에 공유
+     * - combined=true면 target별로 모든 조건을 레이어(OCG)로 겹친 PDF 1개를 추가 생성
+     */
+    @Override
+    public BundleRenderResponse renderBundle(UUID documentId, boolean combined) {
+        long t0 = System.currentTimeMillis();
+
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
+        String bundleKey = base.getBundleKey();
+
+        // target PDF 기준으로 조건 묶기 (VISIT_SUMMARY: 0, 2 / ...)
+        Map<HighlightTarget, List<Integer>> conditionsByTarget = new EnumMap<>(HighlightTarget.class);
+        for (int condition : CONDITIONS) {
+            HighlightTarget target = mapConditionToType(condition).getTarget();
+            conditionsByTarget.computeIfAbsent(target, k -> conditionsOf(target));
+        }
+
+        List<BundleRenderResponse.RenderedFile> files = new ArrayList<>();
+        List<HighlightTarget> missingTargets = new ArrayList<>();
+        AtomicInteger rendered = new AtomicInteger();
+
+        for (Map.Entry<HighlightTarget, List<Integer>> entry : conditionsByTarget.entrySet()) {
+            HighlightTarget target = entry.getKey();
+
+            Optional<Document> targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target);
+            if (targetDoc.isEmpty()) {
+                missingTargets.add(target);
+                continue;
+            }
+
+            Path originalPdfPath = objectStorage.localPath(targetDoc.get().getFileUrl());
+            if (!Files.exists(originalPdfPath)) {
+                missingTargets.add(target);
+                continue;
+            }
+
+            // ✅ 이 target의 모든 조건 룰을 한 번에 적용
+            Set<HighlightType> allTypes = EnumSet.noneOf(HighlightType.class);
+            for (int condition : entry.getValue()) {
+                allTypes.add(mapConditionToType(condition));
+            }
+
+            // ✅ 파싱/판정은 만들어야 할 결과가 하나라도 있을 때 1회만 (모든 조건이 페이지 필터를 지원하면 후보 페이지만)
+            //    전부 이미 있으면(재실행한 야간 배치 등) 파싱도 렌더 슬롯도 쓰지 않는다
+            AtomicReference<List<PdfRowRecord>> appliedRef = new AtomicReference<>();
+            Supplier<List<PdfRowRecord>> applied = () -> {
+                if (appliedRef.get() == null) {
+                    RenderScheduler.admitColdWork();
+                    List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, target,
+                            highlightService.planPages(target, allTypes));
+                    appliedRef.set(highlightService.evaluate(rows, allTypes).getRecords());
+                }
+                return appliedRef.get();
+            };
+
+            for (int condition : entry.getValue()) {
+                HighlightType type = mapConditionToType(condition);
+
+                Path out = resolveHighlightedOutputPath(outputKeyOf(targetDoc.get()), target, condition, false, false);
+                outputFlights.run(out.toString(), () -> {
+                    if (isUpToDate(out, originalPdfPath, targetDoc.get())) return new FileSystemResource(out);
+                    Resource shared = fetchShared(out);
+                    if (shared != null) return shared;
+
+                    generateHighlightedPdf(applied.get(), originalPdfPath, out, EnumSet.of(type), false, false, false);
+                    publish(out);
+                    rendered.incrementAndGet();
+                    return new FileSystemResource(out);
+                });
+
+                files.add(BundleRenderResponse.RenderedFile.builder()
+                        .condition(condition)
+                        .target(target)
+                        .types(EnumSet.of(type))
+                        .fileName(out.getFileName().toString())
+                        .layered(false)
+                        .build());
+            }
+
+            if (combined) {
+                Path out = resolveLayeredOutputPath(outputKeyOf(targetDoc.get()), target, false, false);
+                outputFlights.run(out.toString(), () -> {
+                    if (isUpToDate(out, originalPdfPath, targetDoc.get())) return new FileSystemResource(out);
+                    Resource shared = fetchShared(out);
+                    if (shared != null) return shared;
+
+                    generateHighlightedPdf(applied.get(), originalPdfPath, out, allTypes, true, false, false);
+                    publish(out);
+                    rendered.incrementAndGet();
+                    return new FileSystemResource(out);
+                });
+
+                files.add(BundleRenderResponse.RenderedFile.builder()
+                        .target(target)
+                        .types(allTypes)
+                        .fileName(out.getFileName().toString())
+                        .layered(true)
+                        .build());
+            }
+        }
+
+        long elapsedMs = System.currentTimeMillis() - t0;
+        log.info("renderBundle: bundleKey={}, files={}, rendered={}, missingTargets={}, elapsedMs={}",
+                bundleKey, files.size(), rendered.get(), missingTargets, elapsedMs);
+
+        return BundleRenderResponse.builder()
+                .bundleKey(bundleKey)
+                .files(files)
+                .missingTargets(missingTargets)
+                .elapsedMs(elapsedMs)
+                .build();
+    }
+
+    /**
+     * 번들 문서 간 분석
+     * - 번들의 PDF마다 1회 파싱 + 전체 룰 1회 적용 → BundleIndex에 색인
+     * - CrossRule은 인덱스 위에서 병원 키 해시 조인으로 실행
+     */
+    @Override
+    public BundleAnalysisResponse analyzeBundle(UUID documentId) {
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
+        String bundleKey = base.getBundleKey();
+
+        RenderScheduler.admitColdWork();
+        long t0 = System.currentTimeMillis();
+        BundleIndex index = buildBundleIndex(bundleKey);
+        BundleAnalysisResponse result = bundleAnalyzer.analyze(bundleKey, index);
+
+        log.info("analyzeBundle: bundleKey={}, targets={}, findings={}, elapsedMs={}",
+                bundleKey, index.getTargets(), result.getFindings().size(), System.currentTimeMillis() - t0);
+        return result;
+    }
+
+    /**
+     * 번들 요약 (접수 대시보드용 해당 여부/건수)
+     * - analyzeBundle과 같은 인덱스(1회 파싱 + 전체 룰)만 만들고 PDF 렌더링/엑셀 생성은 하지 않음
+     * - 번들 + 문서 내용 해시 기준으로 캐시 → 같은 번들 재조회는 파싱도 없음
+     */
+    @Override
+    public TriageSummaryResponse summarizeBundle(UUID documentId) {
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
+        String bundleKey = base.getBundleKey();
+
+        StringBuilder cacheKey = new StringBuilder(bundleKey);
+        List<HighlightTarget> missingTargets = new ArrayList<>();
+        for (HighlightTarget target : HighlightTarget.values()) {
+            Optional<Document> targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target);
+            if (targetDoc.isEmpty() || !Files.exists(objectStorage.localPath(targetDoc.get().getFileUrl()))) {
+                missingTargets.add(target);
+                continue;
+            }
+            cacheKey.append('|').append(target).append('=').append(outputKeyOf(targetDoc.get()));
+        }
+
+        return triageSummaryCache.get(cacheKey.toString(), () -> {
+            RenderScheduler.admitColdWork();
+            long t0 = System.currentTimeMillis();
+            BundleIndex index = buildBundleIndex(bundleKey);
+
+            Set<HighlightType> supported = highlightService.supportedTypes();
+            EnumMap<HighlightType, Integer> hitCounts = new EnumMap<>(HighlightType.class);
+            EnumMap<HighlightType, Boolean> flags = new EnumMap<>(HighlightType.class);
+            List<HighlightType> unsupportedTypes = new ArrayList<>();
+            for (HighlightType type : HighlightType.values()) {
+                // ✅ 룰이 없는 조건은 0건이 아니라 "판정 불가"
+                if (!supported.contains(type)) {
+                    unsupportedTypes.add(type);
+                    continue;
+                }
+                int count = index.hitCount(type);
+                hitCounts.put(type, count);
+                flags.put(type, count > 0);
+            }
+
+            log.info("summarizeBundle: bundleKey={}, hitCounts={}, elapsedMs={}",
+                    bundleKey, hitCounts, System.currentTimeMillis() - t0);
+
+            return TriageSummaryResponse.builder()
+                    .bundleKey(bundleKey)
+                    .flags(flags)
+                    .hitCounts(hitCounts)
+                    .unsupportedTypes(unsupportedTypes)
+                    .result(bundleAnalyzer.summarize(index))
+                    .missingTargets(missingTargets)
+                    .build();
+        });
+    }
+
+    private BundleIndex buildBundleIndex(String bundleKey) {
+        BundleIndex index = new BundleIndex();
+
+        for (HighlightTarget target : HighlightTarget.values()) {
+            Optional<Document> targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target);
+            if (targetDoc.isEmpty()) continue;
+
+            Path originalPdfPath = objectStorage.localPath(targetDoc.get().getFileUrl());
+            if (!Files.exists(originalPdfPath)) continue;
+
+            List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, target);
+            List<PdfRowRecord> applied = highlightService.evaluate(rows, EnumSet.allOf(HighlightType.class)).getRecords();
+            index.addDocument(target, applied);
+        }
+        return index;
+    }
+
+    /**
+     * 생성한 결과 파일을 저장소에 올림 (local이면 같은 경로라 아무 일도 안 함)
+     */
+    private void publish(Path out) {
+        objectStorage.put(ObjectStorage.keyOf(Paths.get(uploadDir), out), out);
+    }
+
+    /**
+     * 다른 인스턴스가 만들어 저장소에 올린 결과 (local 저장소는 항상 null)
+     * - 디스크 캐시로 내려받지 않고 다운로드 때 요청 구간만 저장소에서 읽는다
+     */
+    private Resource fetchShared(Path out) {
+        if (!objectStorage.isRemote()) return null;
+
+        String key = ObjectStorage.keyOf(Paths.get(uploadDir), out);
+        return objectStorage.exists(key) ? new StoredObjectResource(objectStorage, key) : null;
+    }
+
+    /**
+     * 같은 폴더의 임시 파일에 저장한 뒤 원자적으로 교체
+     * - 읽는 쪽(isUpToDate, 다운로드)은 완성된 파일만 보게 된다
+     */
+    private void saveAtomically(PDDocument document, Path out) throws IOException {
+        Path tmp = out.resolveSibling(out.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            document.save(tmp.toFile());
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 결과 파일 재사용 여부
+     * - 내용 해시 키 결과물: 키에 내용 + 룰 버전이 들어 있으므로 존재만 확인 (blob 수정 시각과 무관)
+     * - 해시 없는 기존 문서(bundleKey 키): 원본보다 최신일 때만
+     */
+    private boolean isUpToDate(Path out, Path source, Document targetDoc) {
+        try {
+            if (!Files.exists(out) || Files.size(out) == 0) return false;
+            if (targetDoc.getContentHash() != null) return true;
+            return Files.getLastModifiedTime(out).compareTo(Files.getLastModifiedTime(source)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static final Pattern INOUT_ANYWHERE =
+            Pattern.compile("(\\d+)[\\(（](\\d+)[\\)）]");
+
     private int safeParseInt(String v) {
         try {
             return Integer.parseInt(v);
@@ -204,31 +811,31 @@ public class DocumentServiceImpl implements DocumentService {
         Document targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target)
                 .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-        Path originalPdfPath = Paths.get(uploadDir, targetDoc.getFileUrl());
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
         if (!Files.exists(originalPdfPath)) {
             throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
         }
 
-        // 1) PDF 파싱
-        List<PdfRowRecord> rows = parseVisitSummaryPdf(originalPdfPath);
-
-        // 2) 병원별 누적 내원일수 계산 -> 7일 이상 병원 키
-        Set<String> hitHospitalKeys = findHospitalKeysWith7Days(rows);
-
-        // 3) 해당 병원에 속한 행만 추출
-        List<PdfRowRecord> hits = rows.stream()
-                .filter(r -> hitHospitalKeys.contains(normalizeHospitalKey(r.getInstitutionName())))
-                .sorted(
-                        Comparator.comparingInt(PdfRowRecord::getPageIndex)
-                                .thenComparing(r -> safe(r.getInstitutionName()))
-                )
-                .toList();
-
-        // 4) 엑셀 생성 후 Resource 반환
-        Path out = resolveExcelOutputPath(bundleKey, "visit7days");
-        writeVisit7DaysExcel(hits, out);
-
-        return new FileSystemResource(out);
+        return excelArtifactStore.getOrBuild(targetDoc.getContentHash(), originalPdfPath, 0, "visit7days", out -> {
+            // 1) PDF 파싱
+            List<PdfRowRecord> rows = pdfWorkExecutor.call(() -> parseVisitSummaryPdf(originalPdfPath));
+
+            // 2) 병원별 누적 내원일수 7일 이상 룰 적용
+            List<PdfRowRecord> applied = highlightService.evaluate(rows, EnumSet.of(HighlightType.VISIT_OVER_7_DAYS))
+                    .getRecords();
+
+            // 3) 해당 병원에 속한 행만 추출
+            List<PdfRowRecord> hits = applied.stream()
+                    .filter(r -> r.getHighlightTypes().contains(HighlightType.VISIT_OVER_7_DAYS))
+                    .sorted(
+                            Comparator.comparingInt(PdfRowRecord::getPageIndex)
+                                    .thenComparing(r -> safe(r.getInstitutionName()))
+                    )
+                    .toList();
+
+            // 4) 엑셀 생성 후 Resource 반환
+            writeVisit7DaysExcel(hits, out);
+        });
     }
 
     private Resource downloadSurgeryExcel(UUID documentId) {
@@ -240,19 +847,19 @@ public class DocumentServiceImpl implements DocumentService {
         Document targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target)
                 .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-        Path originalPdfPath = Paths.get(uploadDir, targetDoc.getFileUrl());
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
         if (!Files.exists(originalPdfPath)) throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
 
-        List<PdfRowRecord> rows = parseSurgeryPdf(originalPdfPath);
+        return excelArtifactStore.getOrBuild(targetDoc.getContentHash(), originalPdfPath, 3, "surgery", out -> {
+            PagePlan plan = highlightService.planPages(HighlightTarget.TREATMENT_DETAIL, EnumSet.of(HighlightType.HAS_SURGERY));
+            List<PdfRowRecord> rows = pdfWorkExecutor.call(() -> parseSurgeryPdf(originalPdfPath, plan));
 
-        List<PdfRowRecord> hits = rows.stream()
-                .filter(r ->surgeryTokenMatcher.hasRealSurgeryToken(r.getCodeName()))
-                .toList();
-
-        Path out = resolveExcelOutputPath(bundleKey, "surgery");
-        writeSurgeryExcel(hits, out);
+            List<PdfRowRecord> hits = rows.stream()
+                    .filter(r ->surgeryTokenMatcher.hasRealSurgeryToken(r.getCodeName()))
+                    .toList();
 
-        return new FileSystemResource(out);
+            writeSurgeryExcel(hits, out);
+        });
     }
 
     private static final Pattern SURGERY_ROW_START =
@@ -264,18 +871,20 @@ public class DocumentServiceImpl implements DocumentService {
 
 
 
-    private List<PdfRowRecord> parseSurgeryPdf(Path pdfPath) {
+    private List<PdfRowRecord> parseSurgeryPdf(Path pdfPath, PagePlan plan) {
         List<PdfRowRecord> out = new ArrayList<>();
 
         try (PDDocument doc = PDDocument.load(pdfPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
+            // ✅ 하이라이트 경로와 같은 추출기 → 엑셀 row와 PDF 하이라이트의 텍스트(띄어쓰기)가 같다
+            StreamGlyphExtractor extractor = new StreamGlyphExtractor();
+            PageSignatureScanner scanner = plan.isAllPages() ? null : new PageSignatureScanner();
 
             int pages = doc.getNumberOfPages();
             for (int pageIndex = 0; pageIndex < pages; pageIndex++) {
-                stripper.setStartPage(pageIndex + 1);
-                stripper.setEndPage(pageIndex + 1);
+                // ✅ "수술" 마커가 없는 페이지는 텍스트 추출 생략
+                if (scanner != null && !plan.includes(scanner.scanPage(doc, pageIndex))) continue;
 
-                String text = stripper.getText(doc);
+                String text = extractor.extractPage(doc, pageIndex).getText();
                 String[] lines = text.split("\\r?\\n");
 
                 StringBuilder block = new StringBuilder();
@@ -496,6 +1105,8 @@ public class DocumentServiceImpl implements DocumentService {
                 .pageIndex(pageIndex)
                 .target(HighlightTarget.DRUG_SUMMARY)
                 .rawLine(row)
+                .sequence(tokens.get(0))
+                .treatmentStartDate(tokens.get(1))
                 .institutionName(institutionName.isBlank() ? null : institutionName)
                 .daysOfStayOrVisit(visitDays)   // 기본진료정보에서는 내원일수
                 .treatmentDetail(row)           // MVP: 원문 유지
@@ -505,22 +1116,29 @@ public class DocumentServiceImpl implements DocumentService {
     /**
      * 세부진료정보(MVP)
      * - 맨 끝 토큰을 총투약일수로 간주
+     * - parseSurgeryBlock과 같게 병원명은 날짜 다음 첫 토큰, 진료내역은 그 다음 토큰, 나머지는 코드명
      */
     private PdfRowRecord parseDetailRow(String row, int pageIndex) {
         List<String> tokens = Arrays.asList(row.trim().split("\\s+"));
         if (tokens.size() < 6) return null;
 
-        String totalDays = tokens.get(tokens.size() - 1); // 총투약일수
+        int n = tokens.size();
+        String totalDays = tokens.get(n - 1); // 총투약일수
 
-        int start = 2; // seq, date 다음
-        int endExclusive = Math.max(start, tokens.size() - 3); // 마지막 3개(투약량/횟수/일수) 앞까지
-        String institutionName = join(tokens, start, endExclusive).trim();
+        int endExclusive = Math.max(4, n - 3); // 마지막 3개(투약량/횟수/일수) 앞까지
+        String codeName = join(tokens, 4, endExclusive).trim();
 
         return PdfRowRecord.builder()
                 .pageIndex(pageIndex)
                 .target(HighlightTarget.TREATMENT_DETAIL)
                 .rawLine(row)
-                .institutionName(institutionName.isBlank() ? null : institutionName)
+                .sequence(tokens.get(0))
+                .treatmentStartDate(tokens.get(1))
+                .institutionName(tokens.get(2))
+                .treatmentItem(tokens.get(3))
+                .codeName(codeName.isBlank() ? null : codeName)
+                .dosePerOnce(tokens.get(n - 3))
+                .timesPerDay(tokens.get(n - 2))
                 .totalDays(totalDays)
                 .treatmentDetail(row)
                 .build();
@@ -534,10 +1152,8 @@ public class DocumentServiceImpl implements DocumentService {
         String s = row == null ? "" : row.replaceAll("\\s+", " ").trim();
         if (s.isBlank()) return null;
 
-        log.info("[PRESCRIPTION_PARSE] HIT pageIndex={}, head='{}'",
-                pageIndex,
-                s.substring(0, Math.min(80, s.length()))
-        );
+        DiagnosticTrace trace = DiagnosticTrace.current();
+        if (trace != null) trace.event("PRESCRIPTION_PARSE", "pageIndex", pageIndex, "row", s);
 
         List<String> tokens = Arrays.asList(row.trim().split("\\s+"));
         if (tokens.size() < 6) return null;
@@ -552,6 +1168,8 @@ public class DocumentServiceImpl implements DocumentService {
                 .pageIndex(pageIndex)
                 .target(HighlightTarget.PRESCRIPTION)
                 .rawLine(row)
+                .sequence(tokens.get(0))
+                .treatmentStartDate(tokens.get(1))
                 .institutionName(institutionName.isBlank() ? null : institutionName)
                 .totalDays(totalDays)
                 .treatmentDetail(row)
@@ -576,21 +1194,40 @@ public class DocumentServiceImpl implements DocumentService {
 
     /**
      * PDF 생성 + 조건별 하이라이트 적용
+     * - types: 이번 출력에 그릴 HighlightType
+     * - layered: true면 주석을 HighlightType별 레이어(OCG)에 넣는다
+     * - flatten: true면 주석 객체 없이 페이지 내용에 multiply로 직접 그린다 (보관/인쇄 시스템용)
+     * - hitsOnly: true면 하이라이트가 있는 페이지만 새 PDF로 저장 (첫 페이지 요약 + 원본 페이지 색인)
      */
     private void generateHighlightedPdf(
             List<PdfRowRecord> records,
             Path originalPdf,
             Path outputPdf,
-            int condition
+            Set<HighlightType> types,
+            boolean layered,
+            boolean flatten,
+            boolean hitsOnly
+    ) {
+        pdfWorkExecutor.run(() -> renderHighlightedPdf(records, originalPdf, outputPdf, types, layered, flatten, hitsOnly));
+    }
+
+    private void renderHighlightedPdf(
+            List<PdfRowRecord> records,
+            Path originalPdf,
+            Path outputPdf,
+            Set<HighlightType> types,
+            boolean layered,
+            boolean flatten,
+            boolean hitsOnly
     ) {
         long t0 = System.currentTimeMillis();
         log.info("✅ generateHighlightedPdf START: records={}, pdf={}",
                 records == null ? 0 : records.size(), originalPdf.getFileName());
 
-        // 대상 없으면 그대로 복사 저장
-        if (records == null || records.isEmpty()) {
+        // 대상 없으면 그대로 복사 저장 (hitsOnly는 아래에서 요약 페이지만 만든다)
+        if ((records == null || records.isEmpty()) && !hitsOnly) {
             try (PDDocument document = PDDocument.load(originalPdf.toFile())) {
-                document.save(outputPdf.toFile());
+                saveAtomically(document, outputPdf);
             } catch (IOException e) {
                 throw new RuntimeException("PDF 저장 실패(대상 없음)", e);
             }
@@ -599,17 +1236,16 @@ public class DocumentServiceImpl implements DocumentService {
         }
 
         try (PDDocument document = PDDocument.load(originalPdf.toFile())) {
-            PDFTextStripper s = new PDFTextStripper();
-            String raw = s.getText(document);
-            String norm = raw.replaceAll("\\s+", "");
-            log.info("[RAW_CHECK_PDF] file={}, contains11(0)={}",
-                    originalPdf.getFileName(),
-                    norm.contains("11(0)"));
+            // 진단 트레이스가 꺼져 있으면 null → 아래 루프에서 이벤트 인자도 만들지 않는다
+            DiagnosticTrace trace = DiagnosticTrace.current();
+
             List<HighlightMark> marks = new ArrayList<>();
             EnumMap<HighlightType, Integer> summaryCounts = new EnumMap<>(HighlightType.class);
+            HighlightLayers layers = layered ? new HighlightLayers(document) : null;
+            HighlightAppearances appearances = new HighlightAppearances(document);
 
             Map<Integer, List<PdfRowRecord>> byPage = new HashMap<>();
-            for (PdfRowRecord r : records) {
+            for (PdfRowRecord r : records == null ? List.<PdfRowRecord>of() : records) {
                 Integer pageIndex = r.getPageIndex();
                 if (pageIndex == null) continue;
 
@@ -622,211 +1258,104 @@ public class DocumentServiceImpl implements DocumentService {
             }
 
             int highlightCount = 0;
+            int annotationCount = 0;
 
             for (Map.Entry<Integer, List<PdfRowRecord>> entry : byPage.entrySet()) {
                 int pageIndex = entry.getKey();
                 PDPage page = document.getPage(pageIndex);
                 float pageHeight = page.getMediaBox().getHeight();
+                // ✅ 같은 row + 같은 type의 박스(줄바꿈된 병원명 등)는 주석 1개로 합친다 (flatten이면 주석 없음)
+                HighlightAnnotationBatch batch = flatten ? null : new HighlightAnnotationBatch(page, layers, appearances);
 
-                Map<String, List<PDRectangle>> areasCache = new HashMap<>();
                 List<PdfRowRecord> pageRecords = entry.getValue();
 
-                for (PdfRowRecord record : pageRecords) {
-                    Set<HighlightType> types = record.getHighlightTypes();
-                    if (types == null || types.isEmpty()) continue;
+                for (int row = 0; row < pageRecords.size(); row++) {
+                    PdfRowRecord record = pageRecords.get(row);
+                    Set<HighlightType> recordTypes = record.getHighlightTypes();
+                    if (recordTypes == null || recordTypes.isEmpty()) continue;
 
-                    for (HighlightType type : types) {
+                    for (HighlightType type : recordTypes) {
+                        if (!types.contains(type)) continue;
 
-                        if (type == HighlightType.HAS_SURGERY) {
-                            log.info("[SURGERY] page={}, text={}", pageIndex, record.getTreatmentDetail());
-                        }
+                        // ✅ 파싱 시점에 기록된 필드 좌표를 그대로 사용 (페이지 재검색 없음)
+                        List<FieldBox> areas = record.boxesOf(RowField.of(type));
 
-                        if (type == HighlightType.HAS_HOSPITALIZATION) {
-                            log.info("HOSP DEBUG pageIndex={}, days='{}', inst='{}', detail='{}'",
-                                    pageIndex,
-                                    record.getDaysOfStayOrVisit(),
-                                    record.getInstitutionName(),
-                                    record.getTreatmentDetail()
-                            );
+                        if (trace != null) {
+                            trace.event("HIGHLIGHT_ROW", "pageIndex", pageIndex, "type", type,
+                                    "rects", areas.size(), "institution", record.getInstitutionName(),
+                                    "days", record.getDaysOfStayOrVisit(), "detail", record.getTreatmentDetail());
                         }
 
-                        String rawTarget = switch (type) {
-                            case VISIT_OVER_7_DAYS -> record.getInstitutionName();
-
-                            //  입원은 진료정보요약의 "입원(외래)일수" 텍스트(예: 11(0))를 하이라이트
-                            case HAS_HOSPITALIZATION -> record.getDaysOfStayOrVisit();
-
-                            case HAS_SURGERY -> extractSurgeryToken(record.getTreatmentDetail());
-
-                            case MONTH_30_DRUG -> record.getTreatmentDetail();
-                        };
+                        if (areas.isEmpty()) continue;
 
-                        if (type == HighlightType.HAS_SURGERY) {
-                            log.info("[SURGERY_TARGET] page={}, rawTarget='{}'",
-                                    pageIndex, rawTarget);
-                        }
-
-                        if (rawTarget == null) continue;
-
-                        String targetText = rawTarget.trim();
-                        if (targetText.isBlank()) continue;
-
-                        String normalizedTarget = targetText.replaceAll("\\s+", "");
-                        if (normalizedTarget.isBlank()) continue;
-
-                        String cacheKey = type.name() + "|" + normalizedTarget;
-
-                        List<PDRectangle> areas = areasCache.get(cacheKey);
-                        if (areas == null) {
-                            areas = calculateTextPositions(document, pageIndex, targetText);
-                            areasCache.put(cacheKey, areas);
-                        }
-
-                        if (areas == null || areas.isEmpty()) continue;
-
-                        for (PDRectangle rect : areas) {
-                            float x1 = rect.getLowerLeftX();
-                            float y1 = pageHeight - rect.getUpperRightY();
-                            float x2 = rect.getUpperRightX();
-                            float y2 = pageHeight - rect.getLowerLeftY();
-
-                            PDAnnotationTextMarkup highlight =
-                                    new PDAnnotationTextMarkup(PDAnnotationTextMarkup.SUB_TYPE_HIGHLIGHT);
-
-                            highlight.setConstantOpacity(0.9f);
-                            highlight.setColor(type.getPDColor());
-
-                            highlight.setQuadPoints(new float[]{
-                                    x1, y2,
-                                    x2, y2,
-                                    x1, y1,
-                                    x2, y1
-                            });
-
-                            PDRectangle bbox = new PDRectangle();
-                            bbox.setLowerLeftX(x1);
-                            bbox.setLowerLeftY(y1);
-                            bbox.setUpperRightX(x2);
-                            bbox.setUpperRightY(y2);
-
-                            highlight.setRectangle(bbox);
-                            page.getAnnotations().add(highlight);
+                        for (FieldBox area : areas) {
+                            PDRectangle rect = area.toRectangle();
+                            PDRectangle bbox = batch != null
+                                    ? batch.add(type, rect, row, 0.9f)
+                                    : HighlightAnnotationBatch.toPageRect(rect, pageHeight);
                             highlightCount++;
 
                             summaryCounts.put(type, summaryCounts.getOrDefault(type, 0) + 1);
                             marks.add(new HighlightMark(pageIndex, type, bbox));
 
-                            if (type == HighlightType.HAS_SURGERY) {
-                                log.info("[SURGERY_BBOX] page={}, bbox=({}, {}, {}, {})",
-                                        pageIndex,
-                                        bbox.getLowerLeftX(), bbox.getLowerLeftY(),
-                                        bbox.getWidth(), bbox.getHeight());
+                            if (trace != null) {
+                                trace.event("HIGHLIGHT_BBOX", "pageIndex", pageIndex, "type", type,
+                                        "x", bbox.getLowerLeftX(), "y", bbox.getLowerLeftY(),
+                                        "w", bbox.getWidth(), "h", bbox.getHeight());
                             }
                         }
                     }
                 }
-            }
 
-            if (condition == 2 && highlightCount == 0) {
-                highlightCount += applyHospitalizationFallback(document, marks, summaryCounts);
+                if (batch != null) annotationCount += batch.flush();
             }
 
-            PdfOverlayRenderer renderer = new PdfOverlayRenderer(document);
-            renderer.render(document, marks, summaryCounts);
-
-            document.save(outputPdf.toFile());
-            log.info("✅ generateHighlightedPdf END: highlights={}, elapsedMs={}",
-                    highlightCount, System.currentTimeMillis() - t0);
-
-        } catch (IOException e) {
-            throw new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND);
-        }
-    }
-
-    /**
-     * 실제 텍스트 위치 계산
-     */
-    private List<PDRectangle> calculateTextPositions(
-            PDDocument document,
-            int pageIndex,
-            String targetText
-    ) throws IOException {
-
-        List<TextPosition> positionsNoSpace = new ArrayList<>();
-        StringBuilder normalizedPageText = new StringBuilder();
-
-        PDFTextStripper stripper = new PDFTextStripper() {
-            @Override
-            protected void writeString(String text, List<TextPosition> textPositions) {
-                for (TextPosition pos : textPositions) {
-                    String ch = pos.getUnicode();
-                    if (ch == null) continue;
-                    if (ch.isBlank()) continue;
+            if (needsHospitalizationFallback(records, types)) {
+                int before = marks.size();
+                annotationCount += applyHospitalizationFallback(document, marks, summaryCounts, layers, appearances, flatten);
+                highlightCount += marks.size() - before;
+            }
 
-                    normalizedPageText.append(ch);
-                    positionsNoSpace.add(pos);
+            if (hitsOnly) {
+                // ✅ 주석까지 붙은 원본 페이지 중 하이라이트 페이지만 새 문서로 (원본은 저장 끝까지 열어 둠)
+                try (HitPageExtract extract = HitPageExtract.of(document, marks)) {
+                    PDDocument hits = extract.getDocument();
+                    PdfOverlayRenderer renderer = new PdfOverlayRenderer(hits);
+                    renderer.render(hits, extract.remap(marks), summaryCounts, layers, flatten);
+                    renderer.drawOriginalPageIndex(hits, extract.getOriginalPages(),
+                            extract.getSourcePageCount(), !marks.isEmpty());
+
+                    saveAtomically(hits, outputPdf);
+                    log.info("✅ generateHighlightedPdf END(hitsOnly): highlights={}, annotations={}, pages={}/{}, elapsedMs={}",
+                            highlightCount, annotationCount, hits.getNumberOfPages(), document.getNumberOfPages(),
+                            System.currentTimeMillis() - t0);
                 }
+                return;
             }
-        };
 
-        stripper.setStartPage(pageIndex + 1);
-        stripper.setEndPage(pageIndex + 1);
-        stripper.getText(document);
-
-        String pageText = normalizedPageText.toString();
-        boolean has110 = pageText.contains("11(0)");
-        if (has110) {
-            log.info("[RAW_CHECK] pageIndex={} has11(0)=true, around='{}'",
-                    pageIndex,
-                    pageText.substring(
-                            Math.max(0, pageText.indexOf("11(0)") - 30),
-                            Math.min(pageText.length(), pageText.indexOf("11(0)") + 30)
-                    ));
-        } else {
-            log.info("[RAW_CHECK] pageIndex={} has11(0)=false, head='{}'",
-                    pageIndex,
-                    pageText.substring(0, Math.min(80, pageText.length())));
-        }
-        String normalizedTarget = targetText.replaceAll("\\s+", "");
-
-        List<PDRectangle> rectangles = new ArrayList<>();
-
-        int index = pageText.indexOf(normalizedTarget);
-        while (index >= 0) {
-            int start = index;
-            int end = index + normalizedTarget.length() - 1;
-
-            if (start < 0 || end >= positionsNoSpace.size()) break;
-
-            TextPosition startPos = positionsNoSpace.get(start);
-            TextPosition endPos = positionsNoSpace.get(end);
-
-            float x1 = startPos.getXDirAdj();
-            float x2 = endPos.getXDirAdj() + endPos.getWidthDirAdj();
-
-            float yTop = startPos.getYDirAdj();
-            float height = startPos.getHeightDir();
+            PdfOverlayRenderer renderer = new PdfOverlayRenderer(document);
+            renderer.render(document, marks, summaryCounts, layers, flatten);
 
-            rectangles.add(new PDRectangle(
-                    x1,
-                    yTop - height,
-                    x2 - x1,
-                    height
-            ));
+            saveAtomically(document, outputPdf);
+            log.info("✅ generateHighlightedPdf END: highlights={}, annotations={}, elapsedMs={}",
+                    highlightCount, annotationCount, System.currentTimeMillis() - t0);
 
-            index = pageText.indexOf(normalizedTarget, index + 1);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND);
         }
-
-        return rectangles;
     }
 
-
     private HighlightTarget detectHighlightTargetFromFile(Path pdfPath) {
         try (PDDocument doc = PDDocument.load(pdfPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            stripper.setStartPage(1);
-            stripper.setEndPage(1);
-            String firstPage = stripper.getText(doc);
+            // ✅ 업로드 시 추정치로 못 거른 경우(압축 object stream) 실제 페이지 수로 한 번 더 검사
+            if (doc.getNumberOfPages() > pdfIngestor.getMaxPages()) {
+                throw new BaseException(ExceptionEnum.UPLOAD_TOO_MANY_PAGES);
+            }
+
+            // ✅ 첫 페이지 텍스트도 하이라이트/엑셀과 같은 추출기로
+            String firstPage = doc.getNumberOfPages() == 0
+                    ? ""
+                    : new StreamGlyphExtractor().extractPage(doc, 0).getText();
 
             if (firstPage.contains("진료정보요약")) return HighlightTarget.VISIT_SUMMARY;
             if (firstPage.contains("기본진료정보")) return HighlightTarget.DRUG_SUMMARY;      // 현재 enum 재사용
@@ -834,6 +1363,8 @@ public class DocumentServiceImpl implements DocumentService {
             if (firstPage.contains("처방조제정보")) return HighlightTarget.PRESCRIPTION;
 
             return HighlightTarget.VISIT_SUMMARY; // fallback 정책
+        } catch (BaseException e) {
+            throw e;
         } catch (Exception e) {
             log.warn("detectHighlightTargetFromFile failed: {}", pdfPath.getFileName(), e);
             return HighlightTarget.VISIT_SUMMARY;
@@ -841,18 +1372,45 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     private List<PdfRowRecord> parsePdfToRows(Path pdfPath, HighlightTarget target) {
+        return parsePdfToRows(pdfPath, target, PagePlan.allPages());
+    }
+
+    private List<PdfRowRecord> parsePdfToRows(Path pdfPath, HighlightTarget target, PagePlan plan) {
+        return parsedRowCache.get(pdfPath, target, plan.key(),
+                () -> pdfWorkExecutor.call(() -> extractRows(pdfPath, target, plan)));
+    }
+
+    /**
+     * plan이 전체 페이지가 아니면 페이지마다 사전 스캔(PageSignature)을 먼저 하고
+     * 룰이 매칭 가능하다고 한 후보 페이지만 glyph 추출 + row 파싱
+     */
+    private List<PdfRowRecord> extractRows(Path pdfPath, HighlightTarget target, PagePlan plan) {
         List<PdfRowRecord> rows = new ArrayList<>();
 
         try (PDDocument document = PDDocument.load(pdfPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
+            // ✅ 텍스트 + 글자 좌표를 페이지당 1회 추출 (PDFTextStripper 없이 glyph 배열로)
+            StreamGlyphExtractor extractor = new StreamGlyphExtractor();
+            PageSignatureScanner scanner = plan.isAllPages() ? null : new PageSignatureScanner();
+            DiagnosticTrace trace = DiagnosticTrace.current();
 
             int pageCount = document.getNumberOfPages();
+            int parsedPages = 0;
             for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-                stripper.setStartPage(pageIndex + 1);
-                stripper.setEndPage(pageIndex + 1);
+                if (scanner != null) {
+                    PageSignature signature = scanner.scanPage(document, pageIndex);
+                    if (trace != null) {
+                        trace.event("PAGE_SIGNATURE", "pageIndex", pageIndex, "lines", signature.getLineCount(),
+                                "surgeryMarker", signature.isSurgeryMarker(),
+                                "inpatientToken", signature.isInpatientToken());
+                    }
+                    if (!plan.includes(signature)) continue;
+                }
+                parsedPages++;
 
-                String pageText = stripper.getText(document);
-                String[] lines = pageText.split("\\r?\\n");
+                PageGlyphs glyphs = extractor.extractPage(document, pageIndex);
+                String[] lines = glyphs.getText().split("\\r?\\n");
+
+                List<PdfRowRecord> pageRows = new ArrayList<>();
 
                 // ✅ VISIT_SUMMARY는 기존처럼 한 줄 단위 파싱
                 if (target == HighlightTarget.VISIT_SUMMARY) {
@@ -861,32 +1419,40 @@ public class DocumentServiceImpl implements DocumentService {
                         if (row.isEmpty()) continue;
 
                         PdfRowRecord parsed = parseRowByTarget(target, row, pageIndex);
-                        if (parsed != null) rows.add(parsed);
+                        if (parsed != null) pageRows.add(parsed);
                     }
-                    continue;
-                }
-
-                // ✅ 나머지: "순번 + 날짜" 시작을 기준으로 여러 줄을 합쳐 한 행(row) 만들기
-                StringBuilder buf = new StringBuilder();
+                } else {
+                    // ✅ 나머지: "순번 + 날짜" 시작을 기준으로 여러 줄을 합쳐 한 행(row) 만들기
+                    StringBuilder buf = new StringBuilder();
 
-                for (String rawLine : lines) {
-                    String line = rawLine == null ? "" : rawLine.trim();
-                    if (line.isEmpty()) continue;
+                    for (String rawLine : lines) {
+                        String line = rawLine == null ? "" : rawLine.trim();
+                        if (line.isEmpty()) continue;
 
-                    boolean isNewRow = ROW_START_SEQ_DATE.matcher(line).find();
+                        boolean isNewRow = ROW_START_SEQ_DATE.matcher(line).find();
 
-                    if (isNewRow) {
-                        flushBufferedRow(rows, target, buf, pageIndex);
-                        buf.append(line);
-                    } else {
-                        if (!buf.isEmpty()) buf.append(" ");
-                        buf.append(line);
+                        if (isNewRow) {
+                            flushBufferedRow(pageRows, target, buf, pageIndex);
+                            buf.append(line);
+                        } else {
+                            if (!buf.isEmpty()) buf.append(" ");
+                            buf.append(line);
+                        }
                     }
+
+                    flushBufferedRow(pageRows, target, buf, pageIndex);
                 }
 
-                flushBufferedRow(rows, target, buf, pageIndex);
+                for (PdfRowRecord parsed : pageRows) {
+                    rows.add(attachFieldBoxes(parsed, glyphs));
+                }
+                if (trace != null) trace.event("PARSE_PAGE", "pageIndex", pageIndex, "target", target, "rows", pageRows.size());
             }
 
+            if (scanner != null) {
+                log.info("page plan: file={}, target={}, plan={}, parsedPages={}/{}",
+                        pdfPath.getFileName(), target, plan, parsedPages, pageCount);
+            }
             return rows;
 
         } catch (IOException e) {
@@ -894,7 +1460,37 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
-    private Path resolveHighlightedOutputPath(String bundleKey, HighlightTarget target, int condition) {
+    /**
+     * row가 페이지에서 차지하는 구간 안에서만 필드 좌표를 찾아 기록
+     * - 같은 병원명이 페이지에 여러 번 있어도 해당 row의 것만 잡힘
+     */
+    private PdfRowRecord attachFieldBoxes(PdfRowRecord record, PageGlyphs glyphs) {
+        PageGlyphs.RowSpan span = glyphs.locateRow(record.getRawLine());
+        if (span == null) {
+            DiagnosticTrace trace = DiagnosticTrace.current();
+            if (trace != null) {
+                trace.event("FIELD_BOX_MISS", "pageIndex", record.getPageIndex(), "row", record.getRawLine());
+            }
+            return record;
+        }
+
+        EnumMap<RowField, List<PDRectangle>> boxes = new EnumMap<>(RowField.class);
+        putIfPresent(boxes, RowField.INSTITUTION_NAME, span.boxesOf(record.getInstitutionName()));
+        putIfPresent(boxes, RowField.DAYS_OF_STAY_OR_VISIT, span.boxesOf(record.getDaysOfStayOrVisit()));
+        if (record.getTarget() == HighlightTarget.TREATMENT_DETAIL) {
+            putIfPresent(boxes, RowField.SURGERY_TOKEN, span.boxesOf(extractSurgeryToken(record.getTreatmentDetail())));
+        }
+        putIfPresent(boxes, RowField.ROW, span.boxesOfRow());
+
+        return record.withFieldBoxes(boxes);
+    }
+
+    private void putIfPresent(Map<RowField, List<PDRectangle>> boxes, RowField field, List<PDRectangle> rects) {
+        if (rects != null && !rects.isEmpty()) boxes.put(field, rects);
+    }
+
+    private Path resolveHighlightedOutputPath(String outputKey, HighlightTarget target, int condition,
+                                              boolean flatten, boolean hitsOnly) {
         // 원하는 위치로 바꿔도 됨: uploadDir 아래 highlighted 폴더
         Path dir = Paths.get(uploadDir, "highlighted");
         try {
@@ -903,78 +1499,114 @@ public class DocumentServiceImpl implements DocumentService {
             throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
         }
 
-        String safeBundleKey = bundleKey.replaceAll("[^a-zA-Z0-9\\-]", "");
-        String fileName = String.format("%s-%s-cond%d-highlighted.pdf", safeBundleKey, target.name(), condition);
+        String safeKey = outputKey.replaceAll("[^a-zA-Z0-9\\-]", "");
+        String fileName = String.format("%s-%s-cond%d-%s.pdf", safeKey, target.name(), condition,
+                outputVariantOf(flatten, hitsOnly));
 
         return dir.resolve(fileName);
     }
 
-    private int applyHospitalizationFallback(
-            PDDocument document,
-            List<HighlightMark> marks,
-            EnumMap<HighlightType, Integer> summaryCounts
-    ) throws IOException {
+    private Path resolveLayeredOutputPath(String outputKey, HighlightTarget target, boolean flatten, boolean hitsOnly) {
+        Path dir = Paths.get(uploadDir, "highlighted");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
+        }
 
-        log.info("[HOSP_FALLBACK] start");
+        String safeKey = outputKey.replaceAll("[^a-zA-Z0-9\\-]", "");
+        String fileName = String.format("%s-%s-layered-%s.pdf", safeKey, target.name(),
+                outputVariantOf(flatten, hitsOnly));
 
-        int added = 0;
-        int pageCount = document.getNumberOfPages();
-
-        for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
-            List<String> tokens = findHospitalizationTokensOnPage(document, pageIndex);
-            if (tokens.isEmpty()) continue;
+        return dir.resolve(fileName);
+    }
 
-            String token = tokens.get(0);
-            List<PDRectangle> areas = calculateTextPositions(document, pageIndex, token);
-            if (areas == null || areas.isEmpty()) continue;
+    /**
+     * 사용자용 다운로드 파일명
+     * - 결과 파일은 내용 해시로 저장되지만 받는 쪽에는 기존처럼 번들/target/조건이 보이는 이름
+     */
+    @Override
+    public String highlightedDownloadNameOf(UUID documentId, int condition, boolean layered, boolean flatten, boolean hitsOnly) {
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
+        HighlightType type = mapConditionToType(condition);
+        if (type == null) throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
 
-            PDPage page = document.getPage(pageIndex);
-            float pageHeight = page.getMediaBox().getHeight();
+        String safeBundleKey = base.getBundleKey().replaceAll("[^a-zA-Z0-9\\-]", "");
+        String variant = outputVariantOf(flatten, hitsOnly);
+        return layered
+                ? String.format("%s-%s-layered-%s.pdf", safeBundleKey, type.getTarget().name(), variant)
+                : String.format("%s-%s-cond%d-%s.pdf", safeBundleKey, type.getTarget().name(), condition, variant);
+    }
 
-            for (PDRectangle rect : areas) {
-                PDRectangle bbox = addHighlightAnnotation(page, pageHeight, rect, HighlightType.HAS_HOSPITALIZATION);
-                summaryCounts.put(HighlightType.HAS_HOSPITALIZATION,
-                        summaryCounts.getOrDefault(HighlightType.HAS_HOSPITALIZATION, 0) + 1);
-                marks.add(new HighlightMark(pageIndex, HighlightType.HAS_HOSPITALIZATION, bbox));
-                added++;
-            }
+    @Override
+    public String excelDownloadNameOf(UUID documentId, int condition) {
+        Document base = documentRepository.findById(documentId)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-            log.info("[HOSP_FALLBACK] pageIndex={}, token='{}', rects={}", pageIndex, token, areas.size());
-        }
+        String kind = switch (condition) {
+            case 0 -> "visit7days";
+            case 1 -> "drug30days";
+            case 2 -> "hospitalization";
+            case 3 -> "surgery";
+            default -> throw new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND);
+        };
 
-        log.info("[HOSP_FALLBACK] end added={}", added);
-        return added;
+        String safeBundleKey = base.getBundleKey().replaceAll("[^a-zA-Z0-9\\-]", "");
+        return String.format("%s-%s-%s.xlsx", safeBundleKey, kind,
+                java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.BASIC_ISO_DATE));
     }
 
-    private PDRectangle addHighlightAnnotation(PDPage page, float pageHeight, PDRectangle rect, HighlightType type) throws IOException {
-        float x1 = rect.getLowerLeftX();
-        float y1 = pageHeight - rect.getUpperRightY();
-        float x2 = rect.getUpperRightX();
-        float y2 = pageHeight - rect.getLowerLeftY();
-
-        PDAnnotationTextMarkup highlight =
-                new PDAnnotationTextMarkup(PDAnnotationTextMarkup.SUB_TYPE_HIGHLIGHT);
+    // 기존 파일명(…-highlighted.pdf)은 그대로 두고 출력 모드별로 접미어만 다르게
+    private String outputVariantOf(boolean flatten, boolean hitsOnly) {
+        String base = flatten ? "flattened" : "highlighted";
+        return hitsOnly ? base + "-hits" : base;
+    }
 
-        highlight.setConstantOpacity(0.95f);
-        highlight.setColor(type.getPDColor());
+    private int applyHospitalizationFallback(
+            PDDocument document,
+            List<HighlightMark> marks,
+            EnumMap<HighlightType, Integer> summaryCounts,
+            HighlightLayers layers,
+            HighlightAppearances appearances,
+            boolean flatten
+    ) throws IOException {
 
-        highlight.setQuadPoints(new float[]{
-                x1, y2,
-                x2, y2,
-                x1, y1,
-                x2, y1
-        });
+        DiagnosticTrace trace = DiagnosticTrace.current();
+        int added = 0;
+        int annotations = 0;
 
-        PDRectangle bbox = new PDRectangle();
-        bbox.setLowerLeftX(x1);
-        bbox.setLowerLeftY(y1);
-        bbox.setUpperRightX(x2);
-        bbox.setUpperRightY(y2);
+        // ✅ 토큰 + 좌표를 페이지당 1회 추출로 (엑셀 fallback과 같은 스캔)
+        for (InpatientTokenScanner.PageTokens pageTokens : new InpatientTokenScanner().scan(document)) {
+            int pageIndex = pageTokens.getPageIndex();
+            PDPage page = document.getPage(pageIndex);
+            float pageHeight = page.getMediaBox().getHeight();
+            // 토큰은 row 정보가 없으니 같은 줄끼리 주석 1개로 합친다
+            HighlightAnnotationBatch batch = flatten ? null : new HighlightAnnotationBatch(page, layers, appearances);
+
+            int rects = 0;
+            for (InpatientTokenScanner.InpatientToken token : pageTokens.getTokens()) {
+                for (PDRectangle rect : token.getBoxes()) {
+                    PDRectangle bbox = batch != null
+                            ? batch.add(HighlightType.HAS_HOSPITALIZATION, rect, -1, 0.95f)
+                            : HighlightAnnotationBatch.toPageRect(rect, pageHeight);
+                    summaryCounts.put(HighlightType.HAS_HOSPITALIZATION,
+                            summaryCounts.getOrDefault(HighlightType.HAS_HOSPITALIZATION, 0) + 1);
+                    marks.add(new HighlightMark(pageIndex, HighlightType.HAS_HOSPITALIZATION, bbox));
+                    added++;
+                    rects++;
+                }
+            }
+            if (batch != null) annotations += batch.flush();
 
-        highlight.setRectangle(bbox);
-        page.getAnnotations().add(highlight);
+            if (trace != null) {
+                trace.event("HOSP_FALLBACK_PAGE", "pageIndex", pageIndex,
+                        "tokens", pageTokens.getTokens().size(), "rects", rects);
+            }
+        }
 
-        return bbox;
+        log.info("[HOSP_FALLBACK] added={}, annotations={}", added, annotations);
+        return annotations;
     }
 
     private void flushBufferedRow(List<PdfRowRecord> rows, HighlightTarget target, StringBuilder buf, int pageIndex) {
@@ -997,8 +1629,6 @@ public class DocumentServiceImpl implements DocumentService {
 //            Pattern.compile("([가-힣A-Za-z0-9\\[\\]\\(\\)\\/\\-]{2,}수술)(?=\\d|$)");
 
     private String extractSurgeryToken(String rowText) {
-        log.info("[EXTRACT_IMPL] SIMPLE_LAST_SURGERY");
-
         if (rowText == null) return null;
         String s = rowText.replaceAll("\\s+", "");
 
@@ -1022,7 +1652,8 @@ public class DocumentServiceImpl implements DocumentService {
 // 앞뒤 정리
         token = token.replaceAll("^[/\\-]+", "");
 
-        log.info("[EXTRACT_SURGERY_TOKEN] token='{}'", token);
+        DiagnosticTrace trace = DiagnosticTrace.current();
+        if (trace != null) trace.event("EXTRACT_SURGERY_TOKEN", "row", rowText, "token", token);
         return token;
     }
 
@@ -1083,39 +1714,16 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
 
-    private Path resolveExcelOutputPath(String bundleKey, String text) {
-        Path dir = Paths.get(uploadDir, "excel");
-        try {
-            Files.createDirectories(dir);
-        } catch (IOException e) {
-            throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
-        }
-
-        String safeBundleKey = bundleKey.replaceAll("[^a-zA-Z0-9\\-]", "");
-        String safeText = (text == null ? "out" : text.replaceAll("[^a-zA-Z0-9\\-]", ""));
-
-        String fileName = String.format("%s-%s-%s-%s.xlsx",
-                safeBundleKey,
-                safeText,
-                java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.BASIC_ISO_DATE),
-                java.util.UUID.randomUUID().toString().substring(0, 8)   // ✅ 캐시/덮어쓰기 방지
-        );
-
-        return dir.resolve(fileName);
-    }
-
     private List<PdfRowRecord> parseVisitSummaryPdf(Path pdfPath) {
         List<PdfRowRecord> out = new ArrayList<>();
 
         try (PDDocument doc = PDDocument.load(pdfPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
+            // ✅ 하이라이트 경로와 같은 추출기 → 엑셀 row와 PDF 하이라이트의 텍스트(띄어쓰기)가 같다
+            StreamGlyphExtractor extractor = new StreamGlyphExtractor();
 
             int pages = doc.getNumberOfPages();
             for (int pageIndex = 0; pageIndex < pages; pageIndex++) {
-                stripper.setStartPage(pageIndex + 1);
-                stripper.setEndPage(pageIndex + 1);
-
-                String text = stripper.getText(doc);
+                String text = extractor.extractPage(doc, pageIndex).getText();
                 String[] lines = text.split("\\r?\\n");
 
                 StringBuilder buf = new StringBuilder();
@@ -1214,152 +1822,117 @@ public class DocumentServiceImpl implements DocumentService {
         Document targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target)
                 .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-        Path originalPdfPath = Paths.get(uploadDir, targetDoc.getFileUrl());
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
         if (!Files.exists(originalPdfPath)) throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
 
-        List<PdfRowRecord> rows = parseVisitSummaryPdf(originalPdfPath);
-
-        List<PdfRowRecord> hits = rows.stream()
-                .filter(r -> !isPharmacy(r.getInstitutionName()))
-                .filter(r -> {
-                    String v = safe(r.getDaysOfStayOrVisit()).replaceAll("\\s+", "");
-                    Matcher m = INOUT_ANYWHERE.matcher(v);
-                    return m.find() && safeParseInt(m.group(1)) > 0;
-                })
-                .sorted(Comparator.comparingInt(PdfRowRecord::getPageIndex)
-                        .thenComparing(r -> safe(r.getInstitutionName())))
-                .toList();
-
-        log.info("[HOSP_EXCEL] hitsByRowParse={}", hits.size());
+        return excelArtifactStore.getOrBuild(targetDoc.getContentHash(), originalPdfPath, 2, "hospitalization", out -> {
+            List<PdfRowRecord> rows = pdfWorkExecutor.call(() -> parseVisitSummaryPdf(originalPdfPath));
 
-        if (hits.isEmpty()) {
-            log.info("[HOSP_EXCEL_FALLBACK] use token-scan + reconstruct row");
+            List<PdfRowRecord> hits = highlightService.evaluate(rows, EnumSet.of(HighlightType.HAS_HOSPITALIZATION))
+                    .getRecords().stream()
+                    .filter(r -> r.getHighlightTypes().contains(HighlightType.HAS_HOSPITALIZATION))
+                    .sorted(Comparator.comparingInt(PdfRowRecord::getPageIndex)
+                            .thenComparing(r -> safe(r.getInstitutionName())))
+                    .toList();
 
-            try (PDDocument doc = PDDocument.load(originalPdfPath.toFile())) {
+            log.info("[HOSP_EXCEL] hitsByRowParse={}", hits.size());
 
-                PDFTextStripper stripper = new PDFTextStripper();
-                List<PdfRowRecord> fallbackHits = new ArrayList<>();
+            if (hits.isEmpty()) {
+                log.info("[HOSP_EXCEL_FALLBACK] use token-scan + reconstruct row");
 
-                int pages = doc.getNumberOfPages();
-                for (int pageIndex = 0; pageIndex < pages; pageIndex++) {
+                hits = pdfWorkExecutor.call(() -> reconstructHospitalizationRows(originalPdfPath));
+                log.info("[HOSP_EXCEL_FALLBACK] reconstructedHits={}", hits.size());
+            }
 
-                    List<String> tokens = findHospitalizationTokensOnPage(doc, pageIndex);
-                    if (tokens.isEmpty()) continue;
+            writeHospitalizationExcel(hits, out);
+        });
+    }
 
-                    stripper.setStartPage(pageIndex + 1);
-                    stripper.setEndPage(pageIndex + 1);
-                    String pageText = stripper.getText(doc);
-                    String[] lines = pageText.split("\\r?\\n");
+    /**
+     * row 파싱으로 입원 row를 못 찾았을 때: 페이지별 N(M) 토큰 스캔 → 토큰이 든 row 블록만 재구성
+     */
+    private List<PdfRowRecord> reconstructHospitalizationRows(Path originalPdfPath) {
+        try (PDDocument doc = PDDocument.load(originalPdfPath.toFile())) {
 
-                    StringBuilder buf = new StringBuilder();
-                    boolean buffering = false;
+            List<PdfRowRecord> fallbackHits = new ArrayList<>();
 
-                    for (String raw : lines) {
-                        String line = (raw == null) ? "" : raw.trim();
-                        if (line.isEmpty()) continue;
+            // ✅ PDF fallback과 같은 토큰 스캔, 줄 텍스트도 같은 glyph 추출 결과를 쓴다
+            for (InpatientTokenScanner.PageTokens pageTokens : new InpatientTokenScanner().scan(doc)) {
+                int pageIndex = pageTokens.getPageIndex();
+                String[] lines = pageTokens.getGlyphs().getText().split("\\r?\\n");
 
-                        if (line.startsWith("순번")) continue;
-                        if (line.contains("병·의원&약국")) continue;
-                        if (line.startsWith("진료내용")) continue;
-                        if (line.startsWith("총 진료비")) continue;
-                        if (line.startsWith("(건강보험")) continue;
-                        if (line.startsWith("건강보험")) continue;
-                        if (line.startsWith("혜택받은")) continue;
-                        if (line.startsWith("내가 낸")) continue;
-
-                        boolean seqOnly = line.matches("^\\d+$");
-                        boolean seqWithText = line.matches("^\\d+\\s+.*");
-                        boolean startsRow = seqOnly || seqWithText;
-
-                        if (startsRow) {
-                            if (buffering && buf.length() > 0) {
-                                String block = buf.toString().replaceAll("\\s+", " ").trim();
-
-                                boolean containsToken = false;
-                                for (String t : tokens) {
-                                    if (block.contains(t)) { containsToken = true; break; }
-                                    String t2 = t.replace('(', '（').replace(')', '）');
-                                    if (block.contains(t2)) { containsToken = true; break; }
-                                }
-
-                                if (containsToken) {
-                                    Matcher m = VISIT_SUMMARY_ROW.matcher(block);
-                                    if (m.find()) {
-                                        String inout = m.group(3).trim();
-                                        Matcher in = INOUT_ANYWHERE.matcher(inout.replaceAll("\\s+", ""));
-                                        if (in.find() && safeParseInt(in.group(1)) > 0) {
-                                            fallbackHits.add(PdfRowRecord.builder()
-                                                    .pageIndex(pageIndex)
-                                                    .target(HighlightTarget.VISIT_SUMMARY)
-                                                    .rawLine(block)
-                                                    .sequence(m.group(1).trim())
-                                                    .institutionName(m.group(2).trim())
-                                                    .daysOfStayOrVisit(inout)
-                                                    .totalMedicalFee(m.group(4).trim())
-                                                    .insuranceBenefit(m.group(5).trim())
-                                                    .userPaidAmount(m.group(6).trim())
-                                                    .treatmentDetail(null)
-                                                    .build());
-                                        }
-                                    }
-                                }
-                            }
+                StringBuilder buf = new StringBuilder();
+                boolean buffering = false;
 
-                            buf.setLength(0);
-                            buf.append(line);
-                            buffering = true;
+                for (String raw : lines) {
+                    String line = (raw == null) ? "" : raw.trim();
+                    if (line.isEmpty()) continue;
 
-                        } else if (buffering) {
-                            buf.append(" ").append(line);
-                        }
-                    }
+                    if (line.startsWith("순번")) continue;
+                    if (line.contains("병·의원&약국")) continue;
+                    if (line.startsWith("진료내용")) continue;
+                    if (line.startsWith("총 진료비")) continue;
+                    if (line.startsWith("(건강보험")) continue;
+                    if (line.startsWith("건강보험")) continue;
+                    if (line.startsWith("혜택받은")) continue;
+                    if (line.startsWith("내가 낸")) continue;
 
-                    if (buffering && buf.length() > 0) {
-                        String block = buf.toString().replaceAll("\\s+", " ").trim();
+                    boolean seqOnly = line.matches("^\\d+$");
+                    boolean seqWithText = line.matches("^\\d+\\s+.*");
+                    boolean startsRow = seqOnly || seqWithText;
 
-                        boolean containsToken = false;
-                        for (String t : tokens) {
-                            if (block.contains(t)) { containsToken = true; break; }
-                            String t2 = t.replace('(', '（').replace(')', '）');
-                            if (block.contains(t2)) { containsToken = true; break; }
+                    if (startsRow) {
+                        if (buffering && buf.length() > 0) {
+                            PdfRowRecord hit = reconstructHospitalizationRow(buf, pageTokens);
+                            if (hit != null) fallbackHits.add(hit);
                         }
 
-                        if (containsToken) {
-                            Matcher m = VISIT_SUMMARY_ROW.matcher(block);
-                            if (m.find()) {
-                                String inout = m.group(3).trim();
-                                Matcher in = INOUT_ANYWHERE.matcher(inout.replaceAll("\\s+", ""));
-                                if (in.find() && safeParseInt(in.group(1)) > 0) {
-                                    fallbackHits.add(PdfRowRecord.builder()
-                                            .pageIndex(pageIndex)
-                                            .target(HighlightTarget.VISIT_SUMMARY)
-                                            .rawLine(block)
-                                            .sequence(m.group(1).trim())
-                                            .institutionName(m.group(2).trim())
-                                            .daysOfStayOrVisit(inout)
-                                            .totalMedicalFee(m.group(4).trim())
-                                            .insuranceBenefit(m.group(5).trim())
-                                            .userPaidAmount(m.group(6).trim())
-                                            .treatmentDetail(null)
-                                            .build());
-                                }
-                            }
-                        }
+                        buf.setLength(0);
+                        buf.append(line);
+                        buffering = true;
+
+                    } else if (buffering) {
+                        buf.append(" ").append(line);
                     }
                 }
 
-                hits = fallbackHits;
-                log.info("[HOSP_EXCEL_FALLBACK] reconstructedHits={}", hits.size());
-
-            } catch (IOException e) {
-                throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
+                if (buffering && buf.length() > 0) {
+                    PdfRowRecord hit = reconstructHospitalizationRow(buf, pageTokens);
+                    if (hit != null) fallbackHits.add(hit);
+                }
             }
+
+            return fallbackHits;
+
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
         }
+    }
+
+    /** 토큰이 든 row 블록을 진료정보요약 row로 재구성 (입원일수 > 0 일 때만) */
+    private PdfRowRecord reconstructHospitalizationRow(StringBuilder buf, InpatientTokenScanner.PageTokens pageTokens) {
+        String block = buf.toString().replaceAll("\\s+", " ").trim();
+        if (!pageTokens.containsToken(block)) return null;
 
-        Path out = resolveExcelOutputPath(bundleKey, "hospitalization");
-        writeHospitalizationExcel(hits, out);
+        Matcher m = VISIT_SUMMARY_ROW.matcher(block);
+        if (!m.find()) return null;
+
+        String inout = m.group(3).trim();
+        Matcher in = INOUT_ANYWHERE.matcher(inout.replaceAll("\\s+", ""));
+        if (!in.find() || safeParseInt(in.group(1)) <= 0) return null;
 
-        return new FileSystemResource(out);
+        return PdfRowRecord.builder()
+                .pageIndex(pageTokens.getPageIndex())
+                .target(HighlightTarget.VISIT_SUMMARY)
+                .rawLine(block)
+                .sequence(m.group(1).trim())
+                .institutionName(m.group(2).trim())
+                .daysOfStayOrVisit(inout)
+                .totalMedicalFee(m.group(4).trim())
+                .insuranceBenefit(m.group(5).trim())
+                .userPaidAmount(m.group(6).trim())
+                .treatmentDetail(null)
+                .build();
     }
 
     private void writeHospitalizationExcel(List<PdfRowRecord> rows, Path out) {
@@ -1407,8 +1980,6 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
-    private static final int THRESHOLD_DAYS = 30;
-
     public Resource downloadDrugOver30DaysExcel(UUID documentId) {
 
 
@@ -1422,78 +1993,29 @@ public class DocumentServiceImpl implements DocumentService {
         Document targetDoc = documentRepository.findByBundleKeyAndTarget(bundleKey, target)
                 .orElseThrow(() -> new BaseException(ExceptionEnum.DOCUMENT_NOT_FOUND));
 
-        Path originalPdfPath = Paths.get(uploadDir, targetDoc.getFileUrl());
+        Path originalPdfPath = objectStorage.localPath(targetDoc.getFileUrl());
         if (!Files.exists(originalPdfPath)) throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
 
-        // 1) PDF 파싱
-        List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, target);
-
-        // 2) PRESCRIPTION 대상만
-        List<PdfRowRecord> drugRows = rows.stream()
-                .filter(r -> r.getTarget() == HighlightTarget.PRESCRIPTION)
-                .toList();
-
-        // 3) 같은 날짜 + 같은 약(성분+약품명) 기준으로
-        //    처방조제 우선, 없으면 외래
-        Map<String, PdfRowRecord> pickedByDayDrug = new HashMap<>();
-
-        for (PdfRowRecord r : drugRows) {
-            String date = safe(r.getTreatmentStartDate());
-            String ingredient = normalizeDrugKey(r.getCodeName());
-            String drugName = normalizeDrugKey(r.getTreatmentItem());
-
-            if (date.isBlank() || ingredient.isBlank() || drugName.isBlank()) continue;
-
-            String dayDrugKey = date + "|" + ingredient + "|" + drugName;
-
-            log.info("[DAY_DRUG_KEY] type={}, key={}",
-                    safe(r.getRawLine()).contains("처방조제") ? "처방조제" : "외래",
-                    dayDrugKey
-            );
-
-            PdfRowRecord prev = pickedByDayDrug.get(dayDrugKey);
-            if (prev == null) {
-                pickedByDayDrug.put(dayDrugKey, r);
-                continue;
-            }
-
-            boolean prevIsDispense = safe(prev.getRawLine()).contains("처방조제");
-            boolean currIsDispense = safe(r.getRawLine()).contains("처방조제");
-
-            // 기존이 외래이고, 현재가 처방조제면 교체
-            if (!prevIsDispense && currIsDispense) {
-                pickedByDayDrug.put(dayDrugKey, r);
-            }
-        }
-
-        List<PdfRowRecord> pickedRows = new ArrayList<>(pickedByDayDrug.values());
-
-        // 4) 누적 집계 (기존 메서드 그대로 사용)
-        Map<String, Integer> sumByDrug = sumTotalDaysByDrugKey(pickedRows);
-
-        // 5) 30일 이상 약 키
-        Set<String> hitKeys = sumByDrug.entrySet().stream()
-                .filter(e -> e.getValue() >= THRESHOLD_DAYS)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
-
-        // 6) 근거 row만
-        List<PdfRowRecord> hitRows = pickedRows.stream()
-                .filter(r -> {
-                    String key = normalizeDrugKey(r.getCodeName()) + "|" +
-                            normalizeDrugKey(r.getTreatmentItem());
-                    return hitKeys.contains(key);
-                })
-                .sorted(Comparator.comparingInt(PdfRowRecord::getPageIndex)
-                        .thenComparing(r -> safe(r.getInstitutionName()))
-                        .thenComparing(r -> safe(r.getTreatmentStartDate())))
-                .toList();
-
-        // 7) 엑셀 생성
-        Path out = resolveExcelOutputPath(bundleKey, "drug30days");
-        writeDrugOver30DaysExcel(hitRows, sumByDrug, out);
-
-        return new FileSystemResource(out);
+        return excelArtifactStore.getOrBuild(targetDoc.getContentHash(), originalPdfPath, 1, "drug30days", out -> {
+            // 1) PDF 파싱
+            List<PdfRowRecord> rows = parsePdfToRows(originalPdfPath, target);
+
+            // 2) 30일 초과 약제 룰 적용 (중복 제거 + 약제별 누적 집계는 RulePlanner가 계산)
+            //    ⚠️ Drug30DaysRule은 아직 미등록(처방 컬럼 파싱 미구현) → 지금은 헤더만 있는 엑셀
+            RuleEvaluation evaluation = highlightService.evaluate(rows, EnumSet.of(HighlightType.MONTH_30_DRUG));
+            Map<String, Integer> sumByDrug = evaluation.getContext().getDrugDaySums();
+
+            // 3) 근거 row만
+            List<PdfRowRecord> hitRows = evaluation.getRecords().stream()
+                    .filter(r -> r.getHighlightTypes().contains(HighlightType.MONTH_30_DRUG))
+                    .sorted(Comparator.comparingInt(PdfRowRecord::getPageIndex)
+                            .thenComparing(r -> safe(r.getInstitutionName()))
+                            .thenComparing(r -> safe(r.getTreatmentStartDate())))
+                    .toList();
+
+            // 4) 엑셀 생성
+            writeDrugOver30DaysExcel(hitRows, sumByDrug, out);
+        });
     }
 
     private void writeDrugOver30DaysExcel(List<PdfRowRecord> hits, Map<String, Integer> sumByDrug, Path out) {
@@ -1523,8 +2045,7 @@ public class DocumentServiceImpl implements DocumentService {
             for (PdfRowRecord r : hits) {
                 Row row = sheet.createRow(rowIdx++);
 
-                String key = normalizeDrugKey(r.getCodeName()) + "|" + normalizeDrugKey(r.getTreatmentItem());
-                int totalSum = sumByDrug.getOrDefault(key, 0);
+                int totalSum = sumByDrug.getOrDefault(drugKey(r), 0);
 
                 row.createCell(0).setCellValue(safe(r.getSequence()));
                 row.createCell(1).setCellValue(safe(r.getTreatmentStartDate()));
@@ -1550,39 +2071,4 @@ public class DocumentServiceImpl implements DocumentService {
             throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
         }
     }
-
-    private Map<String, Integer> sumTotalDaysByDrugKey(List<PdfRowRecord> drugRows) {
-        Map<String, Integer> sumByDrug = new HashMap<>();
-
-        for (PdfRowRecord r : drugRows) {
-            String ingredient = normalizeDrugKey(r.getCodeName());       // 성분명
-            String drugName = normalizeDrugKey(r.getTreatmentItem());    // 약품명
-
-            if (ingredient.isBlank() || drugName.isBlank()) continue;
-
-            String key = ingredient + "|" + drugName;
-
-            int days = parsePositiveInt(r.getTotalDays());
-            if (days <= 0) continue;
-
-            sumByDrug.merge(key, days, Integer::sum);
-        }
-        return sumByDrug;
-    }
-
-    private String normalizeDrugKey(String s) {
-        if (s == null) return "";
-        return s.replaceAll("\\s+", "").replace("_", "");
-    }
-
-    private int parsePositiveInt(String s) {
-        if (s == null) return 0;
-        String n = s.replaceAll("[^0-9]", "");
-        if (n.isBlank()) return 0;
-        try {
-            return Integer.parseInt(n);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package auto.annotate.domain.document.storage;
+
+import auto.annotate.domain.document.repository.DocumentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 참조 없는 blob 정리 (content-addressed라 요청 처리 중에는 지우지 않는다)
+ * - 업로드 처리 끝에 sweepIfDue() → interval에 최대 1회, 가상 스레드에서 실행
+ * - 마지막 사용(생성 = 수정 시각, 중복 업로드 = 접근 시각) 후 grace가 지났고
+ *   어떤 Document도 그 해시를 가리키지 않는 blob만 삭제 (같은 바이트를 동시에 올리는 중인 업로드는 grace 안이라 건드리지 않음)
+ * - 삭제 직전에 사용 시각과 DB 참조를 한 번 더 확인 (첫 확인과 삭제 사이에 들어온 중복 업로드 보호)
+ * - 비정상 종료로 남은 업로드 임시 파일(.part)도 grace가 지나면 삭제
+ * - 로컬 blob 기준, s3 버킷 쪽은 lifecycle 정책으로 관리
+ */
+@Slf4j
+@Component
+public class BlobSweeper {
+
+    private final Path blobRoot;
+    private final DocumentRepository documentRepository;
+    private final long intervalMs;
+    private final long graceMs;
+    private final AtomicLong lastSweepAt = new AtomicLong();
+
+    public BlobSweeper(@Value("${pdf.file.upload-dir}") String uploadDir,
+                       @Value("${blob.sweep.interval-minutes:60}") long intervalMinutes,
+                       @Value("${blob.sweep.grace-hours:24}") long graceHours,
+                       DocumentRepository documentRepository) {
+        this.blobRoot = Paths.get(uploadDir).resolve("blobs");
+        this.documentRepository = documentRepository;
+        this.intervalMs = TimeUnit.MINUTES.toMillis(intervalMinutes);
+        this.graceMs = TimeUnit.HOURS.toMillis(graceHours);
+    }
+
+    public void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastSweepAt.get();
+        if (now - last < intervalMs || !lastSweepAt.compareAndSet(last, now)) return;
+
+        Thread.startVirtualThread(() -> sweep(now - graceMs));
+    }
+
+    private void sweep(long cutoff) {
+        if (!Files.isDirectory(blobRoot)) return;
+
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(blobRoot, 2)) {
+            List<Path> blobs = files
+                    .filter(Files::isRegularFile)
+                    .toList();
+
+            for (Path blob : blobs) {
+                if (lastUsedMillis(blob) >= cutoff) continue;
+
+                String name = blob.getFileName().toString();
+                if (name.endsWith(".part")) {
+                    if (Files.deleteIfExists(blob)) deleted++;
+                    continue;
+                }
+                if (!name.endsWith(".pdf")) continue;
+
+                String sha256 = name.substring(0, name.length() - ".pdf".length());
+                if (documentRepository.existsByContentHash(sha256)) continue;
+
+                // 그 사이에 같은 내용이 다시 올라왔으면 중단
+                if (lastUsedMillis(blob) >= cutoff || documentRepository.existsByContentHash(sha256)) continue;
+                if (Files.deleteIfExists(blob)) deleted++;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("blob sweep failed: dir={}", blobRoot, e);
+        }
+
+        if (deleted > 0) log.info("blob sweep: deleted={}", deleted);
+    }
+
+    private long lastUsedMillis(Path blob) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(blob, BasicFileAttributes.class);
+        return Math.max(attrs.lastModifiedTime().toMillis(), attrs.lastAccessTime().toMillis());
+    }
+}
@@ -0,0 +1,179 @@
+package auto.annotate.domain.document.storage;
+
+import auto.annotate.common.concurrent.RenderScheduler;
+import auto.annotate.common.concurrent.SingleFlight;
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.common.utils.FileDigests;
+import auto.annotate.domain.highlight.rule.RulePlanner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 엑셀 결과물 저장소 (content-addressed)
+ * - 파일명 = 종류 + 조건 + 룰 버전 + 원본 PDF 내용 해시 → 같은 입력이면 같은 파일을 재사용
+ * - 원본 해시는 업로드 때 계산해 둔 Document.contentHash를 그대로 쓴다
+ * - 보존 정책: 오래된 파일 삭제 + 총 용량 초과 시 최근 사용이 가장 오래된 것부터 삭제
+ *   (로컬 디렉터리 기준, s3 버킷 쪽은 lifecycle 정책으로 관리)
+ * - 최근 IN_USE_GRACE_MS 안에 쓰인 파일은 정리 대상에서 빼서 전송 중인 결과물은 남긴다
+ */
+@Slf4j
+@Component
+public class ExcelArtifactStore {
+
+    private static final long EVICT_INTERVAL_MS = 60_000L;
+    // 이 시간 안에 만들어졌거나 재사용(touch)된 파일은 지우지 않는다
+    // → getOrBuild가 막 돌려준 파일을 컨트롤러가 스트리밍하기 전에 지우는 일 방지
+    private static final long IN_USE_GRACE_MS = 10 * 60_000L;
+
+    private final Path root;
+    private final Path dir;
+    private final ObjectStorage objectStorage;
+    private final Duration maxAge;
+    private final long maxBytes;
+
+    private final SingleFlight<Path, Resource> builds = new SingleFlight<>();
+    private final AtomicLong lastEvictAt = new AtomicLong();
+
+    public ExcelArtifactStore(@Value("${pdf.file.upload-dir}") String uploadDir,
+                              @Value("${excel.retention.max-age-days:30}") long maxAgeDays,
+                              @Value("${excel.retention.max-mb:1024}") long maxMb,
+                              ObjectStorage objectStorage) {
+        this.root = Paths.get(uploadDir);
+        this.dir = root.resolve("excel");
+        this.objectStorage = objectStorage;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.maxBytes = maxMb * 1024 * 1024;
+    }
+
+    /**
+     * 같은 (원본 내용, 조건, 룰 버전) 엑셀이 있으면 그대로, 없으면 writer로 만들어 저장
+     * - knownDigest: 업로드 때 계산해 둔 내용 해시 (해시 없는 예전 문서만 파일을 읽어 계산, 캐시하지 않음)
+     * - writer는 넘겨받은 임시 경로에 쓰고, 완성된 뒤 최종 경로로 원자적 이동
+     */
+    public Resource getOrBuild(String knownDigest, Path source, int condition, String name, Consumer<Path> writer) {
+        String digest = knownDigest != null ? knownDigest : digestOf(source);
+        Path out = dir.resolve(String.format("%s-c%d-r%d-%s.xlsx",
+                name, condition, RulePlanner.RULE_VERSION, digest.substring(0, 16)));
+
+        Resource resource = builds.run(out, () -> {
+            if (Files.exists(out)) {
+                touch(out);
+                log.info("excel cache hit: {}", out.getFileName());
+                return new FileSystemResource(out);
+            }
+
+            // 다른 인스턴스가 만들어 둔 것 (s3) → 내려받지 않고 저장소에서 바로 전송
+            String key = ObjectStorage.keyOf(root, out);
+            if (objectStorage.isRemote() && objectStorage.exists(key)) {
+                return new StoredObjectResource(objectStorage, key);
+            }
+
+            RenderScheduler.admitColdWork();
+            createDir();
+            Path tmp = out.resolveSibling(out.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                writer.accept(tmp);
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                objectStorage.put(key, out);
+            } catch (IOException e) {
+                throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
+            } finally {
+                deleteQuietly(tmp);
+            }
+            return new FileSystemResource(out);
+        });
+
+        evictIfDue();
+        return resource;
+    }
+
+    private String digestOf(Path source) {
+        try {
+            return FileDigests.sha256Hex(source);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_READ_ERROR);
+        }
+    }
+
+    private void evictIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastEvictAt.get();
+        if (now - last < EVICT_INTERVAL_MS || !lastEvictAt.compareAndSet(last, now)) return;
+
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> xlsx = files
+                    .filter(p -> p.getFileName().toString().endsWith(".xlsx"))
+                    .sorted(Comparator.comparing(this::lastModifiedMillis).reversed())
+                    .toList();
+
+            long cutoff = now - maxAge.toMillis();
+            long total = 0;
+            int evicted = 0;
+
+            for (Path p : xlsx) {
+                long size = Files.size(p);
+                long modified = lastModifiedMillis(p);
+                if (now - modified < IN_USE_GRACE_MS) {
+                    total += size;
+                    continue;
+                }
+                if (modified < cutoff || total + size > maxBytes) {
+                    if (!builds.isRunning(p) && Files.deleteIfExists(p)) evicted++;
+                    continue;
+                }
+                total += size;
+            }
+
+            if (evicted > 0) log.info("excel evicted: files={}, keptBytes={}", evicted, total);
+        } catch (IOException e) {
+            log.warn("excel eviction failed: dir={}", dir, e);
+        }
+    }
+
+    // 사용 시각 = 수정 시각 (재사용 시 갱신해서 보존 기간/용량 정리에서 뒤로 밀리게)
+    private void touch(Path p) {
+        try {
+            Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private long lastModifiedMillis(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void createDir() {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
+        }
+    }
+
+    private void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignored) {
+        }
+    }
+}
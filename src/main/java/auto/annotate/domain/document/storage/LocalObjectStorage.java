@@ -0,0 +1,118 @@
+package auto.annotate.domain.document.storage;
+
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * uploadDir 로컬 디스크 저장소 (단일 인스턴스 / 공유 볼륨)
+ */
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalObjectStorage implements ObjectStorage {
+
+    private final Path root;
+
+    public LocalObjectStorage(@Value("${pdf.file.upload-dir}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public long size(String key) {
+        try {
+            return Files.size(resolve(key));
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key) {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) {
+        try {
+            FileChannel ch = FileChannel.open(resolve(key), StandardOpenOption.READ);
+            ch.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(ch), length);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public void put(String key, Path file) {
+        Path target = resolve(key);
+        if (target.equals(file.toAbsolutePath().normalize())) return;
+
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            try {
+                Files.copy(file, tmp);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_SAVE_FAILED);
+        }
+    }
+
+    @Override
+    public void adopt(String key, Path file) {
+        Path target = resolve(key);
+        if (target.equals(file.toAbsolutePath().normalize())) return;
+
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_SAVE_FAILED);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new BaseException(ExceptionEnum.FILE_WRITE_ERROR);
+        }
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    private Path resolve(String key) {
+        Path p = root.resolve(key).normalize();
+        if (!p.startsWith(root)) throw new BaseException(ExceptionEnum.INVALID_INPUT_VALUE);
+        return p;
+    }
+}
@@ -0,0 +1,51 @@
+package auto.annotate.domain.document.storage;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * 업로드 원본/생성 결과물 저장소 SPI
+ * - key: uploadDir 기준 상대 경로 ("blobs/ab/<sha256>.pdf", "highlighted/...", "excel/...")
+ * - storage.type=local(기본) | s3
+ */
+public interface ObjectStorage {
+
+    boolean exists(String key);
+
+    long size(String key);
+
+    InputStream openStream(String key);
+
+    /** [offset, offset + length) 구간만 읽기 */
+    InputStream openRange(String key, long offset, long length);
+
+    /** 로컬 파일을 key로 저장 (파일에서 스트리밍) */
+    void put(String key, Path file);
+
+    /**
+     * put + 로컬 파일을 저장소가 가져간다 (호출 뒤 file 경로는 더 이상 쓰지 않음)
+     * - local: key 경로로 이동 / s3: 올린 뒤 디스크 캐시로 이동 (업로드 디렉터리에 사본이 남지 않음)
+     */
+    void adopt(String key, Path file);
+
+    void delete(String key);
+
+    /**
+     * PDFBox/POI처럼 파일 경로가 필요한 곳에서 쓰는 로컬 경로
+     * - local: 원본 경로 그대로 / s3: 디스크 캐시로 내려받은 경로
+     * - 객체가 없으면 존재하지 않는 경로를 돌려준다 (호출부의 Files.exists 검사 유지)
+     */
+    Path localPath(String key);
+
+    /** 원격 저장소 여부 (s3: 업로드 디렉터리는 임시 작업 공간이고 원본은 버킷에만 둔다) */
+    default boolean isRemote() {
+        return false;
+    }
+
+    static String keyOf(Path root, Path file) {
+        return root.toAbsolutePath().normalize()
+                .relativize(file.toAbsolutePath().normalize())
+                .toString()
+                .replace('\\', '/');
+    }
+}
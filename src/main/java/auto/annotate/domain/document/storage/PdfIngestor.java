@@ -0,0 +1,237 @@
+package auto.annotate.domain.document.storage;
+
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.common.utils.FileDigests;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * 업로드 PDF 저장 (한 번 읽기)
+ * - 입력 스트림을 버퍼 하나로 읽으면서 동시에: 파일 채널로 쓰기 + SHA-256 + 페이지 수 추정 + 크기 제한
+ * - 임시 파일에 쓰고 끝까지 통과하면 blob 경로(blobRoot/해시 앞 2자리/해시.pdf)로 원자적 이동
+ *   이미 같은 해시의 blob이 있으면 임시 파일만 지운다 (중복 업로드 = 디스크 추가 사용 없음)
+ * - 페이지 수는 "/Type /Page" 표식 개수로 추정한다 (압축 object stream 안의 페이지는 안 보임 → 정확한 검사는 로드 시)
+ */
+@Slf4j
+@Component
+public class PdfIngestor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    // PDFBox/Acrobat처럼 앞부분 이 범위 안에서 헤더를 찾는다 (스캐너/EMR 출력은 헤더 앞에 잡바이트가 붙기도 함)
+    private static final int HEADER_SEARCH_BYTES = 1024;
+
+    @Getter
+    private final long maxBytes;
+    @Getter
+    private final int maxPages;
+
+    public PdfIngestor(@Value("${upload.max-bytes:104857600}") long maxBytes,
+                       @Value("${upload.max-pages:2000}") int maxPages) {
+        this.maxBytes = maxBytes;
+        this.maxPages = maxPages;
+    }
+
+    public IngestResult ingest(InputStream in, Path blobRoot) throws IOException {
+        IngestResult staged = ingestStaged(in, blobRoot);
+        Path tmp = staged.getPath();
+        String sha256 = staged.getSha256();
+        Path blob = blobPathOf(blobRoot, sha256);
+
+        boolean deduplicated = Files.exists(blob);
+        try {
+            if (!deduplicated) {
+                Files.createDirectories(blob.getParent());
+                Files.move(tmp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                // 다시 쓰이는 blob → 접근 시각만 갱신 (BlobSweeper 유예 시간 다시 시작)
+                // 수정 시각은 파싱/결과물 캐시 판단에 쓰이므로 건드리지 않는다
+                Files.setAttribute(blob, "lastAccessTime", FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        IngestResult result = new IngestResult(sha256, blob, staged.getBytes(), staged.getPageEstimate(), deduplicated);
+        log.info("ingested: sha256={}, bytes={}, pageMarkers={}, deduplicated={}",
+                sha256, result.getBytes(), result.getPageEstimate(), deduplicated);
+        return result;
+    }
+
+    /**
+     * 검사/해시까지만 하고 이 업로드 전용 임시 파일(.part)로 돌려준다 (blob 경로로 옮기지 않음)
+     * - 원격 저장소: 호출부가 저장소에 넘긴 뒤 지운다 → 같은 바이트의 동시 업로드와 파일을 공유하지 않음
+     */
+    public IngestResult ingestStaged(InputStream in, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve(UUID.randomUUID() + ".part");
+
+        MessageDigest md = FileDigests.newSha256();
+        PageMarkerCounter pages = new PageMarkerCounter();
+        byte[] buf = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buf);
+        long total = 0;
+        HeaderFinder header = new HeaderFinder();
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                // 첫 read가 짧게 끊겨도 되도록 헤더는 이어서 찾는다
+                if (!header.isFound()) {
+                    header.update(buf, n);
+                    if (header.isExhausted()) throw new BaseException(ExceptionEnum.INVALID_PDF);
+                }
+
+                total += n;
+                if (total > maxBytes) {
+                    throw new BaseException(ExceptionEnum.UPLOAD_TOO_LARGE);
+                }
+
+                md.update(buf, 0, n);
+                pages.update(buf, n);
+                if (pages.getCount() > maxPages) {
+                    throw new BaseException(ExceptionEnum.UPLOAD_TOO_MANY_PAGES);
+                }
+
+                view.clear().limit(n);
+                while (view.hasRemaining()) {
+                    out.write(view);
+                }
+            }
+
+            if (!header.isFound()) throw new BaseException(ExceptionEnum.INVALID_PDF);
+            out.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        return new IngestResult(HexFormat.of().formatHex(md.digest()), tmp, total, pages.getCount(), false);
+    }
+
+    public static Path blobPathOf(Path blobRoot, String sha256) {
+        return blobRoot.resolve(sha256.substring(0, 2)).resolve(sha256 + ".pdf");
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class IngestResult {
+        private final String sha256;
+        private final Path path;
+        private final long bytes;
+        private final int pageEstimate;
+        private final boolean deduplicated;
+    }
+
+    /**
+     * 앞 HEADER_SEARCH_BYTES 안의 "%PDF-" (버퍼 경계를 넘어가도 이어서 매칭)
+     */
+    static final class HeaderFinder {
+        private int scanned;
+        private int matched;
+        @Getter
+        private boolean found;
+
+        void update(byte[] b, int len) {
+            for (int i = 0; i < len && !found && scanned < HEADER_SEARCH_BYTES; i++, scanned++) {
+                if (b[i] == PDF_MAGIC[matched]) {
+                    if (++matched == PDF_MAGIC.length) found = true;
+                } else {
+                    matched = (b[i] == PDF_MAGIC[0]) ? 1 : 0;
+                }
+            }
+        }
+
+        /** 헤더 없이 검색 범위를 다 본 경우 */
+        boolean isExhausted() {
+            return !found && scanned >= HEADER_SEARCH_BYTES;
+        }
+    }
+
+    /**
+     * "/Type /Page" 개수 (버퍼 경계를 넘어가도 이어서 매칭, "/Pages"는 제외)
+     */
+    static final class PageMarkerCounter {
+        private static final byte[] TYPE = "/Type".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] PAGE = "/Page".getBytes(StandardCharsets.US_ASCII);
+
+        private static final int IN_TYPE = 0;
+        private static final int AFTER_TYPE = 1;
+        private static final int IN_PAGE = 2;
+        private static final int AFTER_PAGE = 3;
+
+        private int state = IN_TYPE;
+        private int idx;
+        @Getter
+        private int count;
+
+        void update(byte[] b, int len) {
+            for (int i = 0; i < len; i++) {
+                byte c = b[i];
+                switch (state) {
+                    case IN_TYPE -> {
+                        if (c == TYPE[idx]) {
+                            if (++idx == TYPE.length) {
+                                state = AFTER_TYPE;
+                                idx = 0;
+                            }
+                        } else {
+                            reset(c);
+                        }
+                    }
+                    case AFTER_TYPE -> {
+                        if (isWhitespace(c)) continue;
+                        if (c == '/') {
+                            state = IN_PAGE;
+                            idx = 1;
+                        } else {
+                            reset(c);
+                        }
+                    }
+                    case IN_PAGE -> {
+                        if (c == PAGE[idx]) {
+                            if (++idx == PAGE.length) state = AFTER_PAGE;
+                        } else {
+                            reset(c);
+                        }
+                    }
+                    default -> {
+                        if (!isNameChar(c)) count++;
+                        reset(c);
+                    }
+                }
+            }
+        }
+
+        private void reset(byte c) {
+            state = IN_TYPE;
+            idx = (c == '/') ? 1 : 0;
+        }
+
+        private static boolean isWhitespace(byte c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == 0;
+        }
+
+        private static boolean isNameChar(byte c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package auto.annotate.domain.document.storage;
+
+import auto.annotate.common.concurrent.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 원격 객체의 로컬 디스크 캐시 (자주 쓰는 PDF를 매번 내려받지 않게)
+ * - key 경로 그대로 cacheDir 아래에 저장, 같은 key 동시 다운로드는 1회
+ * - 총 용량이 maxBytes를 넘으면 최근 사용이 오래된 파일부터 삭제 (1분에 최대 1회 검사, 10분 안에 쓴 파일은 제외)
+ * - 사용 시각은 lastAccessTime으로 기록 (수정 시각은 건드리지 않음 → 결과물 최신 여부 비교에 영향 없음)
+ */
+@Slf4j
+class ReadThroughDiskCache {
+
+    private static final long EVICT_INTERVAL_MS = 60_000L;
+    // 최근에 쓴 파일은 용량을 넘어도 지우지 않는다
+    // → get()이 막 돌려준 경로를 PDFBox가 열기 전에 지우는 일 방지 (용량 합계에는 포함)
+    private static final long IN_USE_GRACE_MS = 10 * 60_000L;
+
+    private final Path dir;
+    private final long maxBytes;
+    private final SingleFlight<String, Path> downloads = new SingleFlight<>();
+    private final AtomicLong lastEvictAt = new AtomicLong();
+
+    ReadThroughDiskCache(Path dir, long maxBytes) {
+        this.dir = dir.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    Path pathOf(String key) {
+        return dir.resolve(key).normalize();
+    }
+
+    /** 캐시에 있으면 그대로, 없으면 opener로 내려받아 저장. 원격에 없으면 opener가 null */
+    Path get(String key, Supplier<InputStream> opener) {
+        Path cached = pathOf(key);
+        if (Files.isRegularFile(cached)) {
+            touch(cached);
+            return cached;
+        }
+
+        Path result = downloads.run(key, () -> {
+            if (Files.isRegularFile(cached)) return cached;
+
+            try (InputStream in = opener.get()) {
+                if (in == null) return cached;
+
+                Files.createDirectories(cached.getParent());
+                Path tmp = cached.resolveSibling(cached.getFileName() + "." + UUID.randomUUID() + ".tmp");
+                try {
+                    Files.copy(in, tmp);
+                    Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                touch(cached);
+                log.info("disk cache fill: key={}", key);
+                return cached;
+            } catch (IOException e) {
+                throw new IllegalStateException("disk cache fill failed: " + key, e);
+            }
+        });
+
+        evictIfDue();
+        return result;
+    }
+
+    /** 방금 올린 로컬 파일을 캐시로 옮겨 둔다 (곧바로 다시 읽는 경우가 대부분, 복사하지 않음) */
+    void adopt(String key, Path file) {
+        Path cached = pathOf(key);
+        if (cached.equals(file.toAbsolutePath().normalize())) return;
+
+        try {
+            Files.createDirectories(cached.getParent());
+            Files.move(file, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            touch(cached);
+        } catch (IOException e) {
+            // 다른 파일 시스템이면 원자적 이동이 안 된다 → 캐시는 포기 (다음 읽기 때 내려받음)
+            log.warn("disk cache adopt failed: key={}, msg={}", key, e.getMessage());
+        }
+        evictIfDue();
+    }
+
+    void invalidate(String key) {
+        try {
+            Files.deleteIfExists(pathOf(key));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void evictIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastEvictAt.get();
+        if (now - last < EVICT_INTERVAL_MS || !lastEvictAt.compareAndSet(last, now)) return;
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            List<Path> all = files
+                    .filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                    .sorted(Comparator.comparing(this::lastAccessMillis).reversed())
+                    .toList();
+
+            long total = 0;
+            for (Path p : all) {
+                long size = Files.size(p);
+                if (total + size > maxBytes && now - lastAccessMillis(p) >= IN_USE_GRACE_MS) {
+                    Files.deleteIfExists(p);
+                    continue;
+                }
+                total += size;
+            }
+        } catch (IOException e) {
+            log.warn("disk cache eviction failed: dir={}", dir, e);
+        }
+    }
+
+    private void touch(Path p) {
+        try {
+            Files.setAttribute(p, "lastAccessTime", FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private long lastAccessMillis(Path p) {
+        try {
+            return ((FileTime) Files.getAttribute(p, "lastAccessTime")).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
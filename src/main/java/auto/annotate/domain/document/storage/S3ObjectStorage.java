@@ -0,0 +1,145 @@
+package auto.annotate.domain.document.storage;
+
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * S3 호환 저장소 (AWS S3 / MinIO)
+ * - 여러 인스턴스가 같은 버킷을 보므로 sticky session 없이 수평 확장 가능
+ * - PDFBox가 읽을 때는 ReadThroughDiskCache로 내려받은 로컬 파일을 쓴다 (blob은 내용 해시 key라 캐시 무효화 불필요)
+ * - 결과물 다운로드는 openRange로 요청 구간만 읽는다 (StoredObjectResource)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+public class S3ObjectStorage implements ObjectStorage {
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+    private final ReadThroughDiskCache cache;
+
+    public S3ObjectStorage(@Value("${storage.s3.endpoint:}") String endpoint,
+                           @Value("${storage.s3.region:ap-northeast-2}") String region,
+                           @Value("${storage.s3.bucket}") String bucket,
+                           @Value("${storage.s3.prefix:}") String prefix,
+                           @Value("${storage.s3.access-key:}") String accessKey,
+                           @Value("${storage.s3.secret-key:}") String secretKey,
+                           @Value("${storage.s3.path-style:true}") boolean pathStyle,
+                           @Value("${storage.cache.dir:${java.io.tmpdir}/annotate-cache}") String cacheDir,
+                           @Value("${storage.cache.max-mb:2048}") long cacheMaxMb) {
+
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+
+        if (!endpoint.isBlank()) builder.endpointOverride(URI.create(endpoint));
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(accessKey, secretKey)));
+        }
+
+        this.s3 = builder.build();
+        this.bucket = bucket;
+        this.prefix = prefix.isBlank() || prefix.endsWith("/") ? prefix : prefix + "/";
+        this.cache = new ReadThroughDiskCache(Paths.get(cacheDir), cacheMaxMb * 1024 * 1024);
+
+        log.info("S3ObjectStorage: endpoint={}, bucket={}, prefix={}", endpoint, bucket, this.prefix);
+    }
+
+    @PreDestroy
+    public void close() {
+        s3.close();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw e;
+        }
+    }
+
+    @Override
+    public long size(String key) {
+        try {
+            return s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(prefix + key).build())
+                    .contentLength();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream openStream(String key) {
+        try {
+            return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+        } catch (NoSuchKeyException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) {
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        try {
+            return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(prefix + key).range(range).build());
+        } catch (NoSuchKeyException e) {
+            throw new BaseException(ExceptionEnum.FILE_NOT_FOUND);
+        }
+    }
+
+    @Override
+    public void put(String key, Path file) {
+        s3.putObject(PutObjectRequest.builder().bucket(bucket).key(prefix + key).build(), RequestBody.fromFile(file));
+    }
+
+    @Override
+    public void adopt(String key, Path file) {
+        put(key, file);
+        cache.adopt(key, file);
+    }
+
+    @Override
+    public void delete(String key) {
+        s3.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+        cache.invalidate(key);
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return cache.get(key, () -> {
+            try {
+                return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(prefix + key).build());
+            } catch (NoSuchKeyException e) {
+                return null;
+            }
+        });
+    }
+}
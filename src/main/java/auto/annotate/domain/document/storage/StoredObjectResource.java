@@ -0,0 +1,56 @@
+package auto.annotate.domain.document.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+
+/**
+ * 원격 저장소(s3)에 있는 결과물 (다른 인스턴스가 만들어 올린 것)
+ * - 다운로드는 디스크 캐시로 통째로 받지 않고 openRange로 요청 구간만 읽는다
+ */
+public class StoredObjectResource extends AbstractResource {
+
+    private final ObjectStorage storage;
+    private final String key;
+    private long size = -1L;
+
+    public StoredObjectResource(ObjectStorage storage, String key) {
+        this.storage = storage;
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean exists() {
+        return storage.exists(key);
+    }
+
+    @Override
+    public long contentLength() {
+        if (size < 0) size = storage.size(key);
+        return size;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return storage.openStream(key);
+    }
+
+    public InputStream openRange(long offset, long length) {
+        return storage.openRange(key, offset, length);
+    }
+
+    @Override
+    public String getFilename() {
+        int slash = key.lastIndexOf('/');
+        return slash >= 0 ? key.substring(slash + 1) : key;
+    }
+
+    @Override
+    public String getDescription() {
+        return "stored object [" + key + "]";
+    }
+}
@@ -0,0 +1,91 @@
+package auto.annotate.domain.highlight.bundle;
+
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import auto.annotate.domain.highlight.dto.response.BundleAnalysisResponse;
+import auto.annotate.domain.highlight.dto.response.HighlightResult;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * BundleIndex 위에서 CrossRule들을 실행해 문서 간 결과를 만든다
+ */
+@Component
+public class BundleAnalyzer {
+
+    public BundleAnalysisResponse analyze(String bundleKey, BundleIndex index) {
+        EnumMap<HighlightType, Integer> hitCounts = new EnumMap<>(HighlightType.class);
+        for (HighlightType type : HighlightType.values()) {
+            hitCounts.put(type, index.hitCount(type));
+        }
+
+        List<BundleAnalysisResponse.CrossFinding> findings = new ArrayList<>();
+        for (CrossRule rule : CrossRule.values()) {
+            for (BundleIndex.JoinedHit hit : index.join(rule.getLeft(), rule.getRight())) {
+                findings.add(toFinding(rule, hit));
+            }
+        }
+
+        return BundleAnalysisResponse.builder()
+                .bundleKey(bundleKey)
+                .indexedTargets(new ArrayList<>(index.getTargets()))
+                .hitCounts(hitCounts)
+                .findings(findings)
+                .build();
+    }
+
+    /**
+     * 조건별 hit를 병원명/약품명 집합으로 요약 (렌더링 없이 인덱스만 사용)
+     */
+    public HighlightResult summarize(BundleIndex index) {
+        return new HighlightResult(
+                namesOf(index, HighlightType.VISIT_OVER_7_DAYS, PdfRowRecord::getInstitutionName),
+                namesOf(index, HighlightType.HAS_HOSPITALIZATION, PdfRowRecord::getInstitutionName),
+                namesOf(index, HighlightType.HAS_SURGERY, PdfRowRecord::getInstitutionName),
+                namesOf(index, HighlightType.MONTH_30_DRUG, PdfRowRecord::getTreatmentItem)   // 약품명
+        );
+    }
+
+    private Set<String> namesOf(BundleIndex index, HighlightType type,
+                                Function<PdfRowRecord, String> name) {
+        Set<String> out = new TreeSet<>();
+        for (PdfRowRecord r : index.hits(type)) {
+            String value = name.apply(r);
+            if (value != null && !value.isBlank()) out.add(value.trim());
+        }
+        return out;
+    }
+
+    private BundleAnalysisResponse.CrossFinding toFinding(CrossRule rule, BundleIndex.JoinedHit hit) {
+        String institutionName = hit.getLeftRows().stream()
+                .map(PdfRowRecord::getInstitutionName)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(hit.getHospitalKey());
+
+        return BundleAnalysisResponse.CrossFinding.builder()
+                .rule(rule)
+                .description(rule.getDescription())
+                .hospitalKey(hit.getHospitalKey())
+                .institutionName(institutionName)
+                .leftPages(pagesOf(hit.getLeftRows()))
+                .rightPages(pagesOf(hit.getRightRows()))
+                .rightDates(hit.getRightRows().stream()
+                        .map(PdfRowRecord::getTreatmentStartDate)
+                        .filter(d -> d != null && !d.isBlank())
+                        .distinct()
+                        .sorted()
+                        .toList())
+                .build();
+    }
+
+    private List<Integer> pagesOf(List<PdfRowRecord> rows) {
+        return rows.stream()
+                .map(r -> r.getPageIndex() + 1)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+}
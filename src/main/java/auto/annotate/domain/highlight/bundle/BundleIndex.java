@@ -0,0 +1,97 @@
+package auto.annotate.domain.highlight.bundle;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+
+import static auto.annotate.common.utils.HospitalKeyUtils.normalizeHospitalKey;
+
+/**
+ * 번들(진료정보요약/기본진료정보/세부진료정보/처방조제정보) 전체 row의 메모리 인덱스
+ * - HighlightType별 병원 키(normalizeHospitalKey)로 색인 (CrossRule 해시 조인용)
+ * - HighlightType별 hit는 병원 키가 없는 row(기관명 없는 약국 row 등)도 따로 모아 건수/요약에 포함
+ * - 문서당 rows 1회 순회로 채우고, 문서 간 룰은 해시 조인으로 실행 (N×M 스캔 없음)
+ */
+public class BundleIndex {
+
+    private final EnumSet<HighlightTarget> targets = EnumSet.noneOf(HighlightTarget.class);
+    private final EnumMap<HighlightType, Map<String, List<PdfRowRecord>>> hitsByTypeAndHospital =
+            new EnumMap<>(HighlightType.class);
+    private final EnumMap<HighlightType, List<PdfRowRecord>> hitsByType = new EnumMap<>(HighlightType.class);
+
+    /** 룰이 적용된(highlightTypes 세팅된) 한 문서의 rows를 색인 */
+    public void addDocument(HighlightTarget target, List<PdfRowRecord> rows) {
+        targets.add(target);
+
+        for (PdfRowRecord r : rows) {
+            for (HighlightType type : r.getHighlightTypes()) {
+                hitsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(r);
+            }
+
+            String key = normalizeHospitalKey(r.getInstitutionName());
+            if (key.isBlank()) continue;
+
+            for (HighlightType type : r.getHighlightTypes()) {
+                hitsByTypeAndHospital
+                        .computeIfAbsent(type, k -> new HashMap<>())
+                        .computeIfAbsent(key, k -> new ArrayList<>())
+                        .add(r);
+            }
+        }
+    }
+
+    public Set<HighlightTarget> getTargets() {
+        return Collections.unmodifiableSet(targets);
+    }
+
+    /** type hit가 있는 병원 키 → 근거 rows */
+    public Map<String, List<PdfRowRecord>> hitsByHospital(HighlightType type) {
+        return hitsByTypeAndHospital.getOrDefault(type, Map.of());
+    }
+
+    /** type hit 전체 (병원 키 없는 row 포함) */
+    public List<PdfRowRecord> hits(HighlightType type) {
+        return hitsByType.getOrDefault(type, List.of());
+    }
+
+    public int hitCount(HighlightType type) {
+        return hits(type).size();
+    }
+
+    /**
+     * left/right hit를 병원 키로 해시 조인
+     * - 작은 쪽을 돌면서 큰 쪽 맵을 조회
+     */
+    public List<JoinedHit> join(HighlightType left, HighlightType right) {
+        Map<String, List<PdfRowRecord>> l = hitsByHospital(left);
+        Map<String, List<PdfRowRecord>> r = hitsByHospital(right);
+
+        boolean leftIsSmaller = l.size() <= r.size();
+        Map<String, List<PdfRowRecord>> probe = leftIsSmaller ? l : r;
+        Map<String, List<PdfRowRecord>> build = leftIsSmaller ? r : l;
+
+        List<JoinedHit> out = new ArrayList<>();
+        for (Map.Entry<String, List<PdfRowRecord>> e : probe.entrySet()) {
+            List<PdfRowRecord> other = build.get(e.getKey());
+            if (other == null) continue;
+
+            out.add(leftIsSmaller
+                    ? new JoinedHit(e.getKey(), e.getValue(), other)
+                    : new JoinedHit(e.getKey(), other, e.getValue()));
+        }
+        out.sort(Comparator.comparing(JoinedHit::getHospitalKey));
+        return out;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class JoinedHit {
+        private final String hospitalKey;
+        private final List<PdfRowRecord> leftRows;
+        private final List<PdfRowRecord> rightRows;
+    }
+}
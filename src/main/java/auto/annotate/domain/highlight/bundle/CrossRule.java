@@ -0,0 +1,33 @@
+package auto.annotate.domain.highlight.bundle;
+
+import auto.annotate.domain.document.dto.HighlightType;
+import lombok.Getter;
+
+/**
+ * 문서 간(cross-document) 룰
+ * - 서로 다른 PDF에서 나온 두 HighlightType hit를 같은 병원 키로 조인한다
+ */
+@Getter
+public enum CrossRule {
+    HOSPITALIZATION_WITH_SURGERY(
+            HighlightType.HAS_HOSPITALIZATION,
+            HighlightType.HAS_SURGERY,
+            "수술 병원과 동일 병원 입원"
+    ),
+
+    VISIT_OVER_7_DAYS_WITH_SURGERY(
+            HighlightType.VISIT_OVER_7_DAYS,
+            HighlightType.HAS_SURGERY,
+            "수술 병원 누적 내원 7일 이상"
+    );
+
+    private final HighlightType left;
+    private final HighlightType right;
+    private final String description;
+
+    CrossRule(HighlightType left, HighlightType right, String description) {
+        this.left = left;
+        this.right = right;
+        this.description = description;
+    }
+}
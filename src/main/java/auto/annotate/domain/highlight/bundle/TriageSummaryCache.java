@@ -0,0 +1,18 @@
+package auto.annotate.domain.highlight.bundle;
+
+import auto.annotate.common.concurrent.SingleFlightLruCache;
+import auto.annotate.domain.highlight.dto.response.TriageSummaryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 번들 요약(TriageSummaryResponse) 캐시
+ * - 키: bundleKey + target별 문서 출력 키(내용 해시 + RULE_VERSION) → 문서가 바뀌거나 룰이 바뀌면 자연히 miss
+ */
+@Component
+public class TriageSummaryCache extends SingleFlightLruCache<String, TriageSummaryResponse> {
+
+    public TriageSummaryCache(@Value("${triage.summary-cache.max-entries:500}") int maxEntries) {
+        super("triage summary", maxEntries);
+    }
+}
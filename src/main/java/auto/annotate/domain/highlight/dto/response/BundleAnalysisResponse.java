@@ -0,0 +1,35 @@
+package auto.annotate.domain.highlight.dto.response;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.highlight.bundle.CrossRule;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 번들 문서 간 분석 결과
+ */
+@Getter
+@Builder
+public class BundleAnalysisResponse {
+
+    private final String bundleKey;
+    private final List<HighlightTarget> indexedTargets;
+    private final Map<HighlightType, Integer> hitCounts;
+    private final List<CrossFinding> findings;
+
+    @Getter
+    @Builder
+    public static class CrossFinding {
+        private final CrossRule rule;
+        private final String description;
+        private final String hospitalKey;
+        private final String institutionName;
+        private final List<Integer> leftPages;     // 1-based
+        private final List<Integer> rightPages;    // 1-based
+        private final List<String> rightDates;     // 예: 수술일
+    }
+}
@@ -1,7 +1,10 @@
 package auto.annotate.domain.highlight.dto.response;
 
+import lombok.Getter;
+
 import java.util.Set;
 
+@Getter
 public class HighlightResult {
     private final Set<String> hospitalsWith7DaysVisit;
     private final Set<String> hospitalizationHospitals;
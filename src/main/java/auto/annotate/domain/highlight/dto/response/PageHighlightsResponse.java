@@ -0,0 +1,39 @@
+package auto.annotate.domain.highlight.dto.response;
+
+import auto.annotate.domain.document.dto.HighlightType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 페이지 범위 하이라이트 좌표 (pdf.js 점진 렌더링용)
+ * - 좌표: 페이지 왼쪽 위 원점, 단위 pt → viewport.scale만 곱하면 캔버스 위 오버레이 위치
+ */
+@Getter
+@Builder
+public class PageHighlightsResponse {
+
+    private final HighlightType type;
+    private final int fromPage;              // 1-based, 포함
+    private final int toPage;                // 1-based, 포함
+    private final boolean aggregatesCached;  // 문서 단위 집계를 캐시에서 썼는지
+    private final List<PageHighlights> pages;
+
+    @Getter
+    @Builder
+    public static class PageHighlights {
+        private final int page;              // 1-based
+        private final List<Box> boxes;
+    }
+
+    @Getter
+    @Builder
+    public static class Box {
+        private final float x;
+        private final float y;
+        private final float width;
+        private final float height;
+        private final String institutionName;
+    }
+}
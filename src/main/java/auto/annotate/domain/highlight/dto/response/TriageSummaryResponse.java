@@ -0,0 +1,26 @@
+package auto.annotate.domain.highlight.dto.response;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 번들 요약 (접수 대시보드용): 조건별 해당 여부 + 건수 + 병원/약품 목록
+ * - PDF 렌더링/엑셀 생성 없이 파싱 + 룰 판정만으로 만든다
+ * - 룰이 아직 없는 조건은 unsupportedTypes로만 내려주고 flags/hitCounts에는 넣지 않는다 ("해당 없음"으로 보이지 않게)
+ */
+@Getter
+@Builder
+public class TriageSummaryResponse {
+
+    private final String bundleKey;
+    private final Map<HighlightType, Boolean> flags;     // 조건별 해당 여부
+    private final Map<HighlightType, Integer> hitCounts; // 조건별 근거 row 수
+    private final List<HighlightType> unsupportedTypes;  // 판정 룰이 없는 조건 (예: MONTH_30_DRUG)
+    private final HighlightResult result;
+    private final List<HighlightTarget> missingTargets;  // 번들에 없거나 파일이 없는 target
+}
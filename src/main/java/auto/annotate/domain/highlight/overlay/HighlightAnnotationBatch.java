@@ -0,0 +1,148 @@
+package auto.annotate.domain.highlight.overlay;
+
+import auto.annotate.domain.document.dto.HighlightType;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationTextMarkup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 페이지 하나의 하이라이트 주석 모음
+ * - 같은 HighlightType의 사각형을 같은 row(row >= 0) 또는 같은 줄(row < 0) 단위로 묶어
+ *   QuadPoints 여러 세트를 가진 주석 1개로 만든다
+ * - 줄바꿈된 긴 병원명/반복된 토큰이 주석 여러 개로 쪼개지지 않음 → PDF 크기, 저장 시간, pdf.js 렌더링 감소
+ * - 입력 박스는 DirAdj(위에서 아래로) 좌표, add()가 돌려주는 bbox는 PDF 좌표 (마진바/요약용)
+ * - appearance stream은 HighlightAppearances의 공유 form을 참조 (불투명도도 form에 들어 있음)
+ */
+public class HighlightAnnotationBatch {
+
+    // 같은 줄로 볼 baseline 차이 (pt)
+    private static final float LINE_TOLERANCE = 2.0f;
+
+    private final PDPage page;
+    private final float pageHeight;
+    private final HighlightLayers layers;
+    private final HighlightAppearances appearances;
+    private final List<Group> groups = new ArrayList<>();
+
+    public HighlightAnnotationBatch(PDPage page, HighlightLayers layers, HighlightAppearances appearances) {
+        this.page = page;
+        this.pageHeight = page.getMediaBox().getHeight();
+        this.layers = layers;
+        this.appearances = appearances;
+    }
+
+    /**
+     * @param row 같은 값이면 한 주석으로 묶는 row 번호 (음수면 같은 줄끼리만 묶음)
+     */
+    public PDRectangle add(HighlightType type, PDRectangle rect, int row, float opacity) {
+        PDRectangle bbox = toPageRect(rect, pageHeight);
+
+        groupOf(type, row, opacity, bbox.getLowerLeftY())
+                .add(bbox.getLowerLeftX(), bbox.getLowerLeftY(), bbox.getUpperRightX(), bbox.getUpperRightY());
+        return bbox;
+    }
+
+    /** DirAdj(위에서 아래로) 박스 → PDF 좌표 박스 (주석 없이 그리는 flatten 모드도 사용) */
+    public static PDRectangle toPageRect(PDRectangle rect, float pageHeight) {
+        PDRectangle bbox = new PDRectangle();
+        bbox.setLowerLeftX(rect.getLowerLeftX());
+        bbox.setLowerLeftY(pageHeight - rect.getUpperRightY());
+        bbox.setUpperRightX(rect.getUpperRightX());
+        bbox.setUpperRightY(pageHeight - rect.getLowerLeftY());
+        return bbox;
+    }
+
+    /** 모은 그룹을 주석으로 만들어 페이지에 붙인다. 만든 주석 수 반환 */
+    public int flush() throws IOException {
+        if (groups.isEmpty()) return 0;
+
+        List<PDAnnotation> annotations = page.getAnnotations();
+        for (Group g : groups) {
+            PDAnnotationTextMarkup highlight =
+                    new PDAnnotationTextMarkup(PDAnnotationTextMarkup.SUB_TYPE_HIGHLIGHT);
+
+            // /CA는 두지 않는다: appearance form이 이미 불투명도를 칠하므로 겹쳐 적용되지 않게
+            float[] quads = g.quadPoints();
+            PDRectangle bounds = g.bounds();
+            highlight.setColor(g.type.getPDColor());
+            highlight.setQuadPoints(quads);
+            highlight.setRectangle(bounds);
+            appearances.apply(highlight, g.type, g.opacity, quads, bounds);
+
+            if (layers != null) layers.assign(highlight, g.type);
+            annotations.add(highlight);
+        }
+
+        int created = groups.size();
+        groups.clear();
+        return created;
+    }
+
+    private Group groupOf(HighlightType type, int row, float opacity, float y1) {
+        for (Group g : groups) {
+            if (g.type != type || g.opacity != opacity || g.row != row) continue;
+            if (row >= 0 || Math.abs(g.lineY - y1) <= LINE_TOLERANCE) return g;
+        }
+
+        Group g = new Group(type, row, opacity, y1);
+        groups.add(g);
+        return g;
+    }
+
+    private static class Group {
+        private final HighlightType type;
+        private final int row;
+        private final float opacity;
+        private final float lineY;
+
+        private float[] quads = new float[8];
+        private int size = 0;
+
+        private float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        private float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+
+        private Group(HighlightType type, int row, float opacity, float lineY) {
+            this.type = type;
+            this.row = row;
+            this.opacity = opacity;
+            this.lineY = lineY;
+        }
+
+        // 기존 단일 주석과 같은 순서: 좌상, 우상, 좌하, 우하
+        private void add(float x1, float y1, float x2, float y2) {
+            if (size + 8 > quads.length) quads = Arrays.copyOf(quads, quads.length * 2);
+            quads[size++] = x1;
+            quads[size++] = y2;
+            quads[size++] = x2;
+            quads[size++] = y2;
+            quads[size++] = x1;
+            quads[size++] = y1;
+            quads[size++] = x2;
+            quads[size++] = y1;
+
+            minX = Math.min(minX, x1);
+            minY = Math.min(minY, y1);
+            maxX = Math.max(maxX, x2);
+            maxY = Math.max(maxY, y2);
+        }
+
+        private float[] quadPoints() {
+            return Arrays.copyOf(quads, size);
+        }
+
+        private PDRectangle bounds() {
+            PDRectangle r = new PDRectangle();
+            r.setLowerLeftX(minX);
+            r.setLowerLeftY(minY);
+            r.setUpperRightX(maxX);
+            r.setUpperRightY(maxY);
+            return r;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package auto.annotate.domain.highlight.overlay;
+
+import auto.annotate.domain.document.dto.HighlightType;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationTextMarkup;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceDictionary;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.util.Matrix;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 하이라이트 주석 appearance stream (문서당 1개 인스턴스)
+ * - HighlightType 색 + 불투명도 조합마다 단위 사각형(BBox 0 0 1 1)을 칠하는 form XObject를 1개만 만든다
+ * - 사각형 1개짜리 주석: 공유 form을 /AP /N으로 그대로 참조 → 뷰어가 BBox를 주석 /Rect에 맞춰 늘려 그린다
+ * - 사각형 여러 개(줄바꿈 row 등): 사각형마다 cm 행렬 + 공유 form Do만 있는 작은 래퍼 stream
+ * - 뷰어가 모양을 직접 합성하지 않아 렌더링이 빠르고 뷰어마다 같은 결과 (multiply 블렌드)
+ */
+public class HighlightAppearances {
+
+    private static final PDRectangle UNIT = new PDRectangle(0, 0, 1, 1);
+    private static final COSName MULTIPLY = COSName.getPDFName("Multiply");
+
+    private final PDDocument document;
+    private final Map<String, PDAppearanceStream> shared = new HashMap<>();
+
+    public HighlightAppearances(PDDocument document) {
+        this.document = document;
+    }
+
+    /**
+     * @param quads QuadPoints (좌상, 우상, 좌하, 우하 순서 8개씩, PDF 좌표)
+     */
+    public void apply(PDAnnotationTextMarkup highlight, HighlightType type, float opacity,
+                      float[] quads, PDRectangle bounds) throws IOException {
+        PDAppearanceStream fill = sharedFill(type, opacity);
+
+        PDAppearanceDictionary ap = new PDAppearanceDictionary();
+        ap.setNormalAppearance(quads.length == 8 ? fill : wrap(fill, quads, bounds));
+        highlight.setAppearance(ap);
+    }
+
+    private PDAppearanceStream sharedFill(HighlightType type, float opacity) throws IOException {
+        String key = type.name() + "|" + opacity;
+
+        PDAppearanceStream fill = shared.get(key);
+        if (fill != null) return fill;
+
+        fill = new PDAppearanceStream(document);
+        fill.setBBox(UNIT);
+        fill.setResources(new PDResources());
+
+        PDExtendedGraphicsState gs = new PDExtendedGraphicsState();
+        gs.setNonStrokingAlphaConstant(opacity);
+        gs.getCOSObject().setItem(COSName.BM, MULTIPLY);
+
+        try (PDPageContentStream cs = new PDPageContentStream(document, fill)) {
+            cs.setGraphicsStateParameters(gs);
+            cs.setNonStrokingColor(type.getPDColor());
+            cs.addRect(0, 0, 1, 1);
+            cs.fill();
+        }
+
+        shared.put(key, fill);
+        return fill;
+    }
+
+    // 주석 /Rect와 같은 BBox(PDF 좌표) → 사각형마다 단위 form을 그 위치/크기로 변환해 그린다
+    private PDAppearanceStream wrap(PDAppearanceStream fill, float[] quads, PDRectangle bounds) throws IOException {
+        PDAppearanceStream wrapper = new PDAppearanceStream(document);
+        wrapper.setBBox(bounds);
+        wrapper.setResources(new PDResources());
+
+        try (PDPageContentStream cs = new PDPageContentStream(document, wrapper)) {
+            for (int i = 0; i + 7 < quads.length; i += 8) {
+                float x1 = quads[i];
+                float y2 = quads[i + 1];
+                float x2 = quads[i + 2];
+                float y1 = quads[i + 5];
+
+                cs.saveGraphicsState();
+                cs.transform(new Matrix(x2 - x1, 0, 0, y2 - y1, x1, y1));
+                cs.drawForm(fill);
+                cs.restoreGraphicsState();
+            }
+        }
+        return wrapper;
+    }
+}
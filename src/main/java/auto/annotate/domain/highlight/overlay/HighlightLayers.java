@@ -0,0 +1,59 @@
+package auto.annotate.domain.highlight.overlay;
+
+import auto.annotate.domain.document.dto.HighlightType;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
+import org.apache.pdfbox.pdmodel.graphics.optionalcontent.PDOptionalContentGroup;
+import org.apache.pdfbox.pdmodel.graphics.optionalcontent.PDOptionalContentProperties;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+
+import java.util.EnumMap;
+
+/**
+ * HighlightType별 레이어(Optional Content Group)
+ * - 뷰어에서 조건별로 켜고 끌 수 있게 한다
+ * - 레이어 이름은 HighlightType.description
+ */
+public class HighlightLayers {
+
+    private final EnumMap<HighlightType, PDOptionalContentGroup> groups = new EnumMap<>(HighlightType.class);
+
+    public HighlightLayers(PDDocument document) {
+        PDDocumentCatalog catalog = document.getDocumentCatalog();
+
+        PDOptionalContentProperties props = catalog.getOCProperties();
+        if (props == null) {
+            props = new PDOptionalContentProperties();
+            catalog.setOCProperties(props);
+        }
+
+        // OCG는 PDF 1.5부터
+        if (document.getVersion() < 1.5f) {
+            document.setVersion(1.5f);
+        }
+
+        for (HighlightType type : HighlightType.values()) {
+            String name = layerName(type);
+            PDOptionalContentGroup group = props.getGroup(name);
+            if (group == null) {
+                group = new PDOptionalContentGroup(name);
+                props.addGroup(group);
+            }
+            groups.put(type, group);
+        }
+    }
+
+    public PDOptionalContentGroup groupOf(HighlightType type) {
+        return groups.get(type);
+    }
+
+    /** 주석을 type 레이어에 소속시킨다 (/OC) */
+    public void assign(PDAnnotation annotation, HighlightType type) {
+        annotation.getCOSObject().setItem(COSName.OC, groups.get(type));
+    }
+
+    public static String layerName(HighlightType type) {
+        return type.getDescription();
+    }
+}
@@ -1,11 +1,12 @@
 package auto.annotate.domain.highlight.overlay;
 
+import auto.annotate.common.utils.AhoCorasick;
 import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.extract.PageGlyphs;
+import auto.annotate.domain.document.extract.PositionSortedRowGrouper;
+import auto.annotate.domain.document.extract.StreamGlyphExtractor;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.pdfbox.text.TextPosition;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -15,117 +16,67 @@ import java.util.Map;
 public class HighlightMarkCollector {
     /**
      * "조건별 키워드"를 PDF에서 찾아서 marks 생성
-     * - 당장 동작 확인용: 조건마다 대표 키워드 몇 개를 검색
-     * - 실제로는 records 기반으로 병원명/약제명 등 "진짜 값"을 넣으면 정확도 올라감
+     * - 모든 타입의 키워드를 Aho-Corasick 하나로 묶고, 페이지당 strip 1회 + 텍스트 1회 훑기로 전부 찾는다
+     * - 키워드 수가 많아도(약제명 사전 등) 페이지 strip 횟수는 그대로
+     * - 줄/칸(셀) 구간마다 따로 훑는다: 공백은 무시하되 인접 셀·다음 줄에 걸친 매칭은 만들지 않음
      */
     public List<HighlightMark> collectByKeywords(PDDocument document, Map<HighlightType, List<String>> keywordsByType) throws IOException {
         List<HighlightMark> marks = new ArrayList<>();
 
-        for (int pageIndex = 0; pageIndex < document.getNumberOfPages(); pageIndex++) {
-            PDPage page = document.getPage(pageIndex);
-
-            for (Map.Entry<HighlightType, List<String>> e : keywordsByType.entrySet()) {
-                HighlightType type = e.getKey();
+        AhoCorasick<HighlightType> matcher = buildMatcher(keywordsByType);
+        if (matcher.isEmpty()) return marks;
 
-                for (String keyword : e.getValue()) {
-                    if (keyword == null || keyword.isBlank()) continue;
+        StreamGlyphExtractor extractor = new StreamGlyphExtractor(new PositionSortedRowGrouper());
 
-                    List<PDRectangle> rects = findTextRectsInPage(document, pageIndex, keyword);
-
-                    for (PDRectangle r : rects) {
-                        marks.add(new HighlightMark(pageIndex, type, r));
-                    }
-                }
+        for (int pageIndex = 0; pageIndex < document.getNumberOfPages(); pageIndex++) {
+            PageGlyphs glyphs = extractor.extractPage(document, pageIndex);
+            int page = pageIndex;
+
+            String compact = glyphs.getCompactText();
+            for (int segment = 0; segment < glyphs.segmentCount(); segment++) {
+                matcher.search(compact, glyphs.segmentStart(segment), glyphs.segmentEnd(segment),
+                        (start, endExclusive, type) -> {
+                            for (PDRectangle rect : toRects(glyphs, start, endExclusive)) {
+                                marks.add(new HighlightMark(page, type, rect));
+                            }
+                        });
             }
         }
 
         return marks;
     }
 
-    /**
-     * 한 페이지에서 keyword가 등장한 위치들을 PDRectangle로 반환
-     * - 완벽한 “줄 전체”가 아니라, keyword 범위만 잡음
-     */
-    private List<PDRectangle> findTextRectsInPage(PDDocument doc, int pageIndex, String keyword) throws IOException {
-        KeywordPositionStripper stripper = new KeywordPositionStripper(keyword);
-        stripper.setStartPage(pageIndex + 1);
-        stripper.setEndPage(pageIndex + 1);
+    private AhoCorasick<HighlightType> buildMatcher(Map<HighlightType, List<String>> keywordsByType) {
+        AhoCorasick<HighlightType> matcher = new AhoCorasick<>();
+        if (keywordsByType == null) return matcher.build();
 
-        // 텍스트 추출 트리거 (결과 문자열은 안 써도 됨)
-        stripper.getText(doc);
+        for (Map.Entry<HighlightType, List<String>> e : keywordsByType.entrySet()) {
+            if (e.getValue() == null) continue;
 
-        return stripper.getRects();
+            for (String keyword : e.getValue()) {
+                String normalized = PageGlyphs.compactOf(keyword);
+                if (normalized.isEmpty()) continue;
+                matcher.add(normalized, e.getKey());
+            }
+        }
+        return matcher.build();
     }
 
     /**
-     * PDFTextStripper를 상속해서 "키워드가 등장한 텍스트 청크"에서 좌표를 얻는다.
-     * - writeString 호출 단위(보통 단어/라인 조각) 안에서 keyword를 찾는 방식이라
-     *   대부분의 키워드(입원/수술/30일 등)는 잘 잡힘.
+     * [start, endExclusive) 글자 구간의 박스
+     * - 완벽한 “줄 전체”가 아니라, keyword 범위만 잡음
+     * - 줄이 바뀌면 박스를 나눈다 (여러 줄을 덮는 합집합 박스 방지)
      */
-    private static class KeywordPositionStripper extends PDFTextStripper {
-        private final String keyword;
-        private final List<PDRectangle> rects = new ArrayList<>();
-
-        protected KeywordPositionStripper(String keyword) throws IOException {
-            super();
-            this.keyword = keyword;
-            setSortByPosition(true);
-        }
-
-        public List<PDRectangle> getRects() {
-            return rects;
-        }
-
-        @Override
-        protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
-            // textPositions 길이 == text 길이가 안 맞는 경우가 가끔 있어 방어
-            if (text == null || text.isEmpty() || textPositions == null || textPositions.isEmpty()) {
-                return;
-            }
-
-            int from = 0;
-            while (true) {
-                int idx = text.indexOf(keyword, from);
-                if (idx < 0) break;
-
-                int endExclusive = idx + keyword.length();
-                if (endExclusive <= textPositions.size()) {
-                    PDRectangle rect = toRect(textPositions.subList(idx, endExclusive));
-                    if (rect != null) rects.add(rect);
-                }
-                from = endExclusive;
-            }
-        }
-
-        private PDRectangle toRect(List<TextPosition> tps) {
-            if (tps == null || tps.isEmpty()) return null;
-
-            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
-            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
-            float maxH = 0f;
-
-            for (TextPosition tp : tps) {
-                float x = tp.getXDirAdj();
-                float y = tp.getYDirAdj();
-                float w = tp.getWidthDirAdj();
-                float h = tp.getHeightDir();
-
-                minX = Math.min(minX, x);
-                minY = Math.min(minY, y);
-                maxX = Math.max(maxX, x + w);
-                maxY = Math.max(maxY, y);
-                maxH = Math.max(maxH, h);
-            }
-
-            // yDirAdj는 "baseline" 성격이라 아래로 높이를 내려서 박스 잡음 (대부분 잘 보임)
-            float padding = 1.5f;
-            float rectX = minX - padding;
-            float rectY = (minY - maxH) - padding;
-            float rectW = (maxX - minX) + padding * 2;
-            float rectH = maxH + padding * 2;
-
-            if (rectW <= 0 || rectH <= 0) return null;
-            return new PDRectangle(rectX, rectY, rectW, rectH);
+    private List<PDRectangle> toRects(PageGlyphs glyphs, int start, int endExclusive) {
+        List<PDRectangle> out = new ArrayList<>();
+        float padding = 1.5f;
+
+        for (PDRectangle box : glyphs.boxes(start, endExclusive)) {
+            float rectW = box.getWidth() + padding * 2;
+            float rectH = box.getHeight() + padding * 2;
+            if (rectW <= 0 || rectH <= 0) continue;
+            out.add(new PDRectangle(box.getLowerLeftX() - padding, box.getLowerLeftY() - padding, rectW, rectH));
         }
+        return out;
     }
 }
@@ -0,0 +1,99 @@
+package auto.annotate.domain.highlight.overlay;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
+import org.apache.pdfbox.pdmodel.common.PDPageLabelRange;
+import org.apache.pdfbox.pdmodel.common.PDPageLabels;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 하이라이트가 있는 페이지만 담은 새 PDF
+ * - 원본 페이지(주석 포함)를 그대로 가져오고, 원본 문서는 저장이 끝날 때까지 열려 있어야 한다
+ * - 페이지 라벨을 원본 페이지 번호로 달아 뷰어 페이지 표시가 원본 번호가 된다
+ * - 하이라이트가 하나도 없으면 요약 박스를 찍을 원본 첫 페이지만 담는다
+ */
+public class HitPageExtract implements Closeable {
+
+    private final PDDocument document;
+    private final int[] originalPages;   // 새 문서 페이지 i → 원본 pageIndex
+    private final int sourcePageCount;
+
+    private HitPageExtract(PDDocument document, int[] originalPages, int sourcePageCount) {
+        this.document = document;
+        this.originalPages = originalPages;
+        this.sourcePageCount = sourcePageCount;
+    }
+
+    public static HitPageExtract of(PDDocument source, List<HighlightMark> marks) throws IOException {
+        TreeSet<Integer> hitPages = new TreeSet<>();
+        for (HighlightMark m : marks) hitPages.add(m.pageIndex);
+        if (hitPages.isEmpty()) hitPages.add(0);
+
+        PDDocument out = new PDDocument();
+        try {
+            out.setVersion(source.getVersion());
+
+            // 레이어(OCG) 주석이 가리키는 그룹 정의도 같이 가져간다
+            PDDocumentCatalog catalog = out.getDocumentCatalog();
+            catalog.setOCProperties(source.getDocumentCatalog().getOCProperties());
+
+            int[] originalPages = new int[hitPages.size()];
+            PDPageLabels labels = new PDPageLabels(out);
+            int i = 0;
+            for (int pageIndex : hitPages) {
+                out.importPage(source.getPage(pageIndex));
+
+                PDPageLabelRange range = new PDPageLabelRange();
+                range.setStyle(PDPageLabelRange.STYLE_DECIMAL);
+                range.setStart(pageIndex + 1);
+                labels.setLabelItem(i, range);
+
+                originalPages[i++] = pageIndex;
+            }
+            catalog.setPageLabels(labels);
+
+            return new HitPageExtract(out, originalPages, source.getNumberOfPages());
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    public PDDocument getDocument() {
+        return document;
+    }
+
+    public int[] getOriginalPages() {
+        return originalPages.clone();
+    }
+
+    public int getSourcePageCount() {
+        return sourcePageCount;
+    }
+
+    /** 원본 pageIndex 기준 marks → 새 문서 pageIndex 기준 marks */
+    public List<HighlightMark> remap(List<HighlightMark> marks) {
+        List<HighlightMark> out = new ArrayList<>(marks.size());
+        for (HighlightMark m : marks) {
+            int newIndex = indexOf(m.pageIndex);
+            if (newIndex >= 0) out.add(new HighlightMark(newIndex, m.type, m.rect));
+        }
+        return out;
+    }
+
+    private int indexOf(int originalPage) {
+        int i = Arrays.binarySearch(originalPages, originalPage);   // 원본 페이지 순서로 담았으므로 정렬돼 있음
+        return i >= 0 ? i : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+}
@@ -2,6 +2,7 @@ package auto.annotate.domain.highlight.overlay;
 
 import auto.annotate.domain.document.dto.HighlightType;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -19,6 +20,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PdfOverlayRenderer {
 
+    // 주석 모드 하이라이트(0.9)와 비슷하게 보이도록
+    private static final float FLAT_HIGHLIGHT_ALPHA = 0.9f;
+    private static final COSName MULTIPLY = COSName.getPDFName("Multiply");
+
     private final PDType0Font summaryFont;
 
     public PdfOverlayRenderer(PDDocument document) throws IOException {
@@ -34,6 +39,26 @@ public class PdfOverlayRenderer {
     public void render(PDDocument document,
                        List<HighlightMark> marks,
                        Map<HighlightType, Integer> summaryCounts) throws IOException {
+        render(document, marks, summaryCounts, null);
+    }
+
+    public void render(PDDocument document,
+                       List<HighlightMark> marks,
+                       Map<HighlightType, Integer> summaryCounts,
+                       HighlightLayers layers) throws IOException {
+        render(document, marks, summaryCounts, layers, false);
+    }
+
+    /**
+     * layers가 있으면 탭/마진바를 HighlightType별 레이어(OCG) 안에 그린다
+     * - 요약 박스는 전체 조건 요약이라 레이어 밖에 둔다
+     * - flattenHighlights=true면 marks 박스 자체도 같은 content stream에 multiply로 칠한다 (주석 없는 출력)
+     */
+    public void render(PDDocument document,
+                       List<HighlightMark> marks,
+                       Map<HighlightType, Integer> summaryCounts,
+                       HighlightLayers layers,
+                       boolean flattenHighlights) throws IOException {
 
         List<HighlightMark> safeMarks = (marks == null) ? Collections.emptyList() : marks;
 
@@ -71,8 +96,25 @@ public class PdfOverlayRenderer {
                         .map(Map.Entry::getKey)
                         .collect(Collectors.toCollection(LinkedHashSet::new));
 
-                drawPageTabs(cs, mb, typesPresent);
-                drawMarginBars(cs, mb, pageMarks);
+                if (flattenHighlights) {
+                    drawFlatHighlights(cs, pageMarks, layers);
+                }
+
+                if (layers == null) {
+                    drawPageTabs(cs, mb, typesPresent);
+                    drawMarginBars(cs, mb, pageMarks);
+                } else {
+                    drawLayeredPageTabs(cs, mb, typesPresent, layers);
+
+                    Map<HighlightType, List<HighlightMark>> marksByType = pageMarks.stream()
+                            .collect(Collectors.groupingBy(m -> m.type,
+                                    () -> new EnumMap<>(HighlightType.class), Collectors.toList()));
+                    for (Map.Entry<HighlightType, List<HighlightMark>> e : marksByType.entrySet()) {
+                        cs.beginMarkedContent(COSName.OC, layers.groupOf(e.getKey()));
+                        drawMarginBars(cs, mb, e.getValue());
+                        cs.endMarkedContent();
+                    }
+                }
             }
         }
     }
@@ -172,6 +214,34 @@ public class PdfOverlayRenderer {
         setFillAlpha(cs, 1.0f);
     }
 
+    // 탭 위치는 비레이어 모드와 같게 두고, 탭 하나하나를 해당 레이어로 감싼다
+    private void drawLayeredPageTabs(PDPageContentStream cs, PDRectangle mb, Set<HighlightType> typesPresent,
+                                     HighlightLayers layers) throws IOException {
+        if (typesPresent == null || typesPresent.isEmpty()) return;
+
+        float tabW = 6f;
+        float tabH = 16f;
+        float gap = 4f;
+
+        float x = mb.getUpperRightX() - tabW;
+        float yTop = mb.getUpperRightY() - 18f;
+
+        int i = 0;
+        for (HighlightType t : typesPresent) {
+            float y = yTop - (tabH + gap) * i;
+
+            cs.beginMarkedContent(COSName.OC, layers.groupOf(t));
+            setFillAlpha(cs, 0.85f);
+            cs.setNonStrokingColor(colorOf(t));
+            cs.addRect(x, y, tabW, tabH);
+            cs.fill();
+            cs.endMarkedContent();
+
+            i++;
+        }
+        setFillAlpha(cs, 1.0f);
+    }
+
     private void drawMarginBars(PDPageContentStream cs, PDRectangle mb, List<HighlightMark> pageMarks) throws IOException {
         if (pageMarks == null || pageMarks.isEmpty()) return;
 
@@ -193,6 +263,101 @@ public class PdfOverlayRenderer {
         setFillAlpha(cs, 1.0f);
     }
 
+    /**
+     * 하이라이트 페이지만 뽑은 문서용 원본 페이지 색인
+     * - 첫 페이지 요약 박스 아래: 원본 페이지 번호 목록
+     * - 각 페이지 오른쪽 아래: "원본 p.N / 전체"
+     */
+    public void drawOriginalPageIndex(PDDocument document, int[] originalPages, int sourcePageCount,
+                                      boolean hasHits) throws IOException {
+        for (int i = 0; i < originalPages.length && i < document.getNumberOfPages(); i++) {
+            PDPage page = document.getPage(i);
+            PDRectangle mb = page.getMediaBox();
+
+            try (PDPageContentStream cs = new PDPageContentStream(
+                    document, page,
+                    PDPageContentStream.AppendMode.APPEND,
+                    true, true
+            )) {
+                if (i == 0) {
+                    drawIndexLine(cs, mb, buildIndexText(originalPages, sourcePageCount, hasHits));
+                }
+
+                String stamp = "원본 p." + (originalPages[i] + 1) + " / " + sourcePageCount;
+                float size = 8f;
+                float width = summaryFont.getStringWidth(stamp) / 1000f * size;
+
+                cs.beginText();
+                cs.setNonStrokingColor(new Color(90, 90, 90));
+                cs.setFont(summaryFont, size);
+                cs.newLineAtOffset(mb.getUpperRightX() - 18f - width, mb.getLowerLeftY() + 10f);
+                cs.showText(stamp);
+                cs.endText();
+            }
+        }
+    }
+
+    // 요약 박스(drawSummaryBox) 바로 아래 한 줄
+    private void drawIndexLine(PDPageContentStream cs, PDRectangle mb, String text) throws IOException {
+        float margin = 18f;
+        float boxH = 26f;
+
+        cs.beginText();
+        cs.setNonStrokingColor(new Color(60, 60, 60));
+        cs.setFont(summaryFont, 9f);
+        cs.newLineAtOffset(mb.getLowerLeftX() + margin + 8f, mb.getUpperRightY() - margin - boxH - 12f);
+        cs.showText(text);
+        cs.endText();
+    }
+
+    private String buildIndexText(int[] originalPages, int sourcePageCount, boolean hasHits) {
+        if (!hasHits) return "하이라이트 페이지 없음 (전체 " + sourcePageCount + "쪽)";
+
+        // 한 줄에 다 못 넣으면 앞쪽만 표시
+        int shown = Math.min(originalPages.length, 30);
+        StringBuilder sb = new StringBuilder("원본 페이지: ");
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(originalPages[i] + 1);
+        }
+        if (shown < originalPages.length) sb.append(" …");
+        sb.append(" (전체 ").append(sourcePageCount).append("쪽 중 ").append(originalPages.length).append("쪽)");
+        return sb.toString();
+    }
+
+    /**
+     * 하이라이트 박스를 페이지 내용에 직접 칠한다 (주석 객체 없음)
+     * - multiply 블렌드라 글자 위에 칠해도 글자는 그대로 검게 보인다 (흰 배경이 깔린 페이지에서도 가려지지 않음)
+     * - type별로 사각형을 모아 fill 1번
+     */
+    private void drawFlatHighlights(PDPageContentStream cs, List<HighlightMark> pageMarks,
+                                    HighlightLayers layers) throws IOException {
+        if (pageMarks == null || pageMarks.isEmpty()) return;
+
+        Map<HighlightType, List<HighlightMark>> marksByType = pageMarks.stream()
+                .collect(Collectors.groupingBy(m -> m.type,
+                        () -> new EnumMap<>(HighlightType.class), Collectors.toList()));
+
+        PDExtendedGraphicsState gs = new PDExtendedGraphicsState();
+        gs.setNonStrokingAlphaConstant(FLAT_HIGHLIGHT_ALPHA);
+        gs.getCOSObject().setItem(COSName.BM, MULTIPLY);
+
+        for (Map.Entry<HighlightType, List<HighlightMark>> e : marksByType.entrySet()) {
+            if (layers != null) cs.beginMarkedContent(COSName.OC, layers.groupOf(e.getKey()));
+
+            cs.saveGraphicsState();
+            cs.setGraphicsStateParameters(gs);
+            cs.setNonStrokingColor(e.getKey().getPDColor());
+            for (HighlightMark m : e.getValue()) {
+                cs.addRect(m.rect.getLowerLeftX(), m.rect.getLowerLeftY(), m.rect.getWidth(), m.rect.getHeight());
+            }
+            cs.fill();
+            cs.restoreGraphicsState();
+
+            if (layers != null) cs.endMarkedContent();
+        }
+    }
+
     private void setFillAlpha(PDPageContentStream cs, float alpha) throws IOException {
         PDExtendedGraphicsState gs = new PDExtendedGraphicsState();
         gs.setNonStrokingAlphaConstant(alpha);
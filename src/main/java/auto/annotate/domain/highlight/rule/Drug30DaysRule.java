@@ -0,0 +1,47 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+
+import java.util.Set;
+
+import static auto.annotate.common.utils.HospitalKeyUtils.drugKey;
+
+/**
+ * 30일 초과 약제 복용
+ * - 처방조제정보 기준, 같은 날짜+같은 약은 처방조제 우선 1건만 집계
+ * - 누적 투약일수 30일 이상인 약의 근거 row
+ *
+ * ⚠️ 아직 미구현: 룰 SPI(@Component)에 등록하지 않는다
+ * - parsePrescriptionRow가 약품명(treatmentItem)/성분명(codeName)을 채우지 않아 drugKey가 항상 빈 값
+ * - HighlightType.MONTH_30_DRUG의 target(DRUG_SUMMARY)과 이 룰의 target(PRESCRIPTION)이 다름
+ * → 처방조제정보 컬럼 파싱이 들어오면 target을 맞추고 @Component로 등록
+ */
+public class Drug30DaysRule implements HighlightRule {
+
+    public static final int THRESHOLD_DAYS = 30;
+
+    @Override
+    public HighlightType type() {
+        return HighlightType.MONTH_30_DRUG;
+    }
+
+    @Override
+    public HighlightTarget target() {
+        return HighlightTarget.PRESCRIPTION;
+    }
+
+    @Override
+    public Set<RuleAggregate> requiredAggregates() {
+        return Set.of(RuleAggregate.DRUG_DAY_SUM);
+    }
+
+    @Override
+    public boolean matches(PdfRowRecord row, RuleContext context) {
+        if (!context.isPickedDrugRow(row)) return false;
+
+        String key = drugKey(row);
+        return !key.isBlank() && context.drugDays(key) >= THRESHOLD_DAYS;
+    }
+}
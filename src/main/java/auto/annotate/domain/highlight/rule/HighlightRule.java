@@ -0,0 +1,36 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import auto.annotate.domain.document.extract.PageSignature;
+
+import java.util.Set;
+
+/**
+ * 하이라이트 룰 SPI
+ * - 스프링 빈으로 등록하면 RulePlanner가 자동으로 수집한다
+ * - 필요한 집계는 requiredAggregates()로 선언만 하고, 계산은 RulePlanner가 공유해서 한 번만 한다
+ * - 페이지 단위로 거를 수 있는 룰은 filtersPages/mayMatchPage를 구현해 후보 페이지만 파싱되게 한다
+ */
+public interface HighlightRule {
+
+    HighlightType type();
+
+    /** 이 룰이 읽는 row의 target (다른 target row에는 적용하지 않음) */
+    HighlightTarget target();
+
+    Set<RuleAggregate> requiredAggregates();
+
+    boolean matches(PdfRowRecord row, RuleContext context);
+
+    /** 페이지 사전 필터 지원 여부 (기본 false: 집계 룰처럼 모든 row가 필요하면 전체 페이지 파싱) */
+    default boolean filtersPages() {
+        return false;
+    }
+
+    /** 이 페이지에 매칭 row가 있을 수 있으면 true (불필요한 true는 괜찮지만 false로 놓치면 안 됨) */
+    default boolean mayMatchPage(PageSignature page) {
+        return true;
+    }
+}
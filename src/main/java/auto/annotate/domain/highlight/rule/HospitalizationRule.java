@@ -0,0 +1,54 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.common.utils.HospitalizationTokenMatcher;
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import auto.annotate.domain.document.extract.PageSignature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+import static auto.annotate.common.utils.HospitalKeyUtils.isPharmacy;
+
+/**
+ * 입원 내역 포함: 입원(외래)일수의 앞 숫자(입원)가 1 이상, 약국 제외
+ */
+@Component
+@RequiredArgsConstructor
+public class HospitalizationRule implements HighlightRule {
+
+    private final HospitalizationTokenMatcher hospitalizationTokenMatcher;
+
+    @Override
+    public HighlightType type() {
+        return HighlightType.HAS_HOSPITALIZATION;
+    }
+
+    @Override
+    public HighlightTarget target() {
+        return HighlightTarget.VISIT_SUMMARY;
+    }
+
+    @Override
+    public Set<RuleAggregate> requiredAggregates() {
+        return Set.of();
+    }
+
+    @Override
+    public boolean matches(PdfRowRecord row, RuleContext context) {
+        if (isPharmacy(row.getInstitutionName())) return false;
+        return hospitalizationTokenMatcher.hasHospitalization(row.getDaysOfStayOrVisit());
+    }
+
+    @Override
+    public boolean filtersPages() {
+        return true;
+    }
+
+    @Override
+    public boolean mayMatchPage(PageSignature page) {
+        return page.isInpatientToken();
+    }
+}
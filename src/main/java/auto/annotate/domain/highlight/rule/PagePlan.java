@@ -0,0 +1,56 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.extract.PageSignature;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 룰 기반 페이지 파싱 계획
+ * - allPages: 사전 스캔 없이 모든 페이지 파싱 (집계 룰처럼 전체 row가 필요한 경우)
+ * - 그 외: 선택된 룰 중 하나라도 mayMatchPage가 true인 페이지만 파싱
+ * - key()는 파싱 결과 캐시 키에 들어간다 (부분 파싱 결과가 전체 파싱 결과로 쓰이지 않도록)
+ */
+public class PagePlan {
+
+    private static final PagePlan ALL_PAGES = new PagePlan(List.of());
+
+    private final List<HighlightRule> filters;
+
+    private PagePlan(List<HighlightRule> filters) {
+        this.filters = filters;
+    }
+
+    public static PagePlan allPages() {
+        return ALL_PAGES;
+    }
+
+    static PagePlan filtered(List<HighlightRule> filters) {
+        return filters.isEmpty() ? ALL_PAGES : new PagePlan(List.copyOf(filters));
+    }
+
+    public boolean isAllPages() {
+        return filters.isEmpty();
+    }
+
+    public boolean includes(PageSignature page) {
+        if (filters.isEmpty()) return true;
+        for (HighlightRule rule : filters) {
+            if (rule.mayMatchPage(page)) return true;
+        }
+        return false;
+    }
+
+    public String key() {
+        if (filters.isEmpty()) return "all";
+        return filters.stream()
+                .map(r -> r.type().name())
+                .sorted()
+                .collect(Collectors.joining("+"));
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+}
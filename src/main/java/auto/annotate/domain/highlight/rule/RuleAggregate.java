@@ -0,0 +1,10 @@
+package auto.annotate.domain.highlight.rule;
+
+/**
+ * 룰이 필요로 하는 문서 단위 집계
+ * - RulePlanner가 선택된 룰들의 집계를 합쳐 한 번만 계산한다
+ */
+public enum RuleAggregate {
+    HOSPITAL_DAY_SUM,   // 병원별 누적 입원(외래)일수 (진료정보요약, 약국 제외)
+    DRUG_DAY_SUM        // 약제별 누적 투약일수 (처방조제정보, 같은 날짜+약은 처방조제 우선 1건)
+}
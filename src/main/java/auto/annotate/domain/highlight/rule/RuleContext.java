@@ -0,0 +1,59 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RulePlanner가 계산한 공유 집계
+ * - 요청되지 않은 집계는 비어 있다
+ * - row는 객체가 아니라 값 키(페이지 + 순번 + 원문)로 기억한다
+ *   → ParsedRowCache가 비워져 다시 파싱한 row에도 그대로 맞고, 캐시가 row 목록을 붙잡지 않는다
+ */
+public class RuleContext {
+
+    private final Map<String, Integer> hospitalDaySums;
+    private final Map<String, Integer> drugDaySums;
+    private final Set<String> pickedDrugRows;
+
+    RuleContext(Map<String, Integer> hospitalDaySums,
+                Map<String, Integer> drugDaySums,
+                Set<String> pickedDrugRows) {
+        this.hospitalDaySums = hospitalDaySums;
+        this.drugDaySums = drugDaySums;
+        this.pickedDrugRows = pickedDrugRows;
+    }
+
+    static RuleContext empty() {
+        return new RuleContext(Map.of(), Map.of(), Set.of());
+    }
+
+    /** 정규화된 병원 키 기준 누적 일수 */
+    public int hospitalDays(String hospitalKey) {
+        return hospitalDaySums.getOrDefault(hospitalKey, 0);
+    }
+
+    /** "성분|약품명" 키 기준 누적 투약일수 */
+    public int drugDays(String drugKey) {
+        return drugDaySums.getOrDefault(drugKey, 0);
+    }
+
+    /** 같은 날짜+약 중복 제거 후 남은 row인지 */
+    public boolean isPickedDrugRow(PdfRowRecord row) {
+        return pickedDrugRows.contains(rowKeyOf(row));
+    }
+
+    static String rowKeyOf(PdfRowRecord row) {
+        return row.getPageIndex() + "|" + row.getSequence() + "|" + row.getRawLine();
+    }
+
+    public Map<String, Integer> getHospitalDaySums() {
+        return Collections.unmodifiableMap(hospitalDaySums);
+    }
+
+    public Map<String, Integer> getDrugDaySums() {
+        return Collections.unmodifiableMap(drugDaySums);
+    }
+}
@@ -0,0 +1,18 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.common.concurrent.SingleFlightLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 문서 단위 집계(RuleContext) 캐시
+ * - 키: 문서 출력 키(내용 해시 + RULE_VERSION) + 집계 종류 → 같은 PDF면 번들이 달라도 공유
+ * - 페이지 범위 하이라이트 요청은 집계를 한 번만 만들고 이후 범위 요청은 캐시된 집계로 판정
+ */
+@Component
+public class RuleContextCache extends SingleFlightLruCache<String, RuleContext> {
+
+    public RuleContextCache(@Value("${rule.context-cache.max-entries:64}") int maxEntries) {
+        super("rule context", maxEntries);
+    }
+}
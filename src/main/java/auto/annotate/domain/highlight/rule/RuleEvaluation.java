@@ -0,0 +1,17 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 룰 적용 결과: highlightTypes가 세팅된 row + 계산에 쓰인 집계
+ */
+@Getter
+@RequiredArgsConstructor
+public class RuleEvaluation {
+    private final List<PdfRowRecord> records;
+    private final RuleContext context;
+}
@@ -0,0 +1,194 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static auto.annotate.common.utils.HospitalKeyUtils.*;
+
+/**
+ * 선택된 룰 실행 계획
+ * 1) 룰들이 선언한 집계를 합쳐 rows 1회 순회로 계산
+ * 2) 모든 룰을 rows 1회 순회(fused loop)로 적용
+ * - 조건이 늘어도 rows 순회 횟수는 2회로 고정
+ * - 파싱 전에는 planPages로 후보 페이지 계획을 만든다
+ * - 페이지 범위만 볼 때는 문서 전체로 집계(aggregate)를 한 번 만들어 두고 범위 row에 evaluate(…, context)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RulePlanner {
+
+    // ✅ 룰 판정 로직/엑셀 내용/텍스트 추출/하이라이트 박스·주석 구조가 바뀌면 올린다 (content-addressed 결과물 무효화용)
+    // 2: glyph 추출기로 통일 + 필드 박스 줄 단위 분리 + multi-quad 주석 + 공유 appearance stream
+    public static final int RULE_VERSION = 2;
+
+    private final List<HighlightRule> rules;
+
+    public RuleEvaluation evaluate(List<PdfRowRecord> records, Set<HighlightType> types) {
+        if (records == null || records.isEmpty() || types == null || types.isEmpty()) {
+            return new RuleEvaluation(records == null ? List.of() : records, RuleContext.empty());
+        }
+
+        List<HighlightRule> selected = selectedRules(types);
+        EnumSet<RuleAggregate> aggregates = aggregatesOf(types);
+
+        RuleContext context = computeAggregates(records, aggregates);
+
+        log.info("rule evaluate: types={}, rules={}, aggregates={}, records={}",
+                types, selected.size(), aggregates, records.size());
+
+        return new RuleEvaluation(apply(records, selected, context), context);
+    }
+
+    /** 미리 계산해 둔 문서 단위 집계로 일부 row(페이지 범위 등)만 판정 */
+    public RuleEvaluation evaluate(List<PdfRowRecord> records, Set<HighlightType> types, RuleContext context) {
+        if (records == null || records.isEmpty() || types == null || types.isEmpty()) {
+            return new RuleEvaluation(records == null ? List.of() : records, context);
+        }
+        return new RuleEvaluation(apply(records, selectedRules(types), context), context);
+    }
+
+    /** 선택된 조건의 룰들이 필요로 하는 집계 (비어 있으면 row 단독으로 판정 가능) */
+    public EnumSet<RuleAggregate> aggregatesOf(Set<HighlightType> types) {
+        EnumSet<RuleAggregate> aggregates = EnumSet.noneOf(RuleAggregate.class);
+        if (types == null) return aggregates;
+
+        for (HighlightRule rule : selectedRules(types)) {
+            aggregates.addAll(rule.requiredAggregates());
+        }
+        return aggregates;
+    }
+
+    /** 문서 전체 row로 선택된 조건의 집계만 계산 */
+    public RuleContext aggregate(List<PdfRowRecord> records, Set<HighlightType> types) {
+        if (records == null || records.isEmpty()) return RuleContext.empty();
+        return computeAggregates(records, aggregatesOf(types));
+    }
+
+    /** 구현된 룰이 있는 조건 (룰이 없는 조건은 판정 결과가 항상 0건이라 "해당 없음"과 구분해야 한다) */
+    public Set<HighlightType> supportedTypes() {
+        EnumSet<HighlightType> out = EnumSet.noneOf(HighlightType.class);
+        for (HighlightRule rule : rules) out.add(rule.type());
+        return out;
+    }
+
+    private List<HighlightRule> selectedRules(Set<HighlightType> types) {
+        return rules.stream()
+                .filter(r -> types.contains(r.type()))
+                .toList();
+    }
+
+    private List<PdfRowRecord> apply(List<PdfRowRecord> records, List<HighlightRule> selected, RuleContext context) {
+        List<PdfRowRecord> out = new ArrayList<>(records.size());
+        for (PdfRowRecord r : records) {
+            Set<HighlightType> hitTypes = null;
+
+            for (HighlightRule rule : selected) {
+                if (r.getTarget() != rule.target()) continue;
+                if (!rule.matches(r, context)) continue;
+
+                if (hitTypes == null) hitTypes = new HashSet<>(r.getHighlightTypes());
+                hitTypes.add(rule.type());
+            }
+
+            out.add(hitTypes == null ? r : r.withHighlightTypes(hitTypes));
+        }
+        return out;
+    }
+
+    /**
+     * target PDF에서 파싱해야 할 페이지 계획
+     * - 선택된 룰이 전부 페이지 필터를 지원할 때만 후보 페이지로 좁힌다
+     * - 하나라도 전체 row가 필요하면(집계 룰 등) 모든 페이지
+     */
+    public PagePlan planPages(HighlightTarget target, Set<HighlightType> types) {
+        if (types == null || types.isEmpty()) return PagePlan.allPages();
+
+        List<HighlightRule> selected = rules.stream()
+                .filter(r -> r.target() == target && types.contains(r.type()))
+                .toList();
+
+        for (HighlightRule rule : selected) {
+            if (!rule.filtersPages()) return PagePlan.allPages();
+        }
+        return PagePlan.filtered(selected);
+    }
+
+    private RuleContext computeAggregates(List<PdfRowRecord> records, EnumSet<RuleAggregate> aggregates) {
+        boolean needHospital = aggregates.contains(RuleAggregate.HOSPITAL_DAY_SUM);
+        boolean needDrug = aggregates.contains(RuleAggregate.DRUG_DAY_SUM);
+
+        Map<String, Integer> hospitalDaySums = new HashMap<>();
+        Map<String, PdfRowRecord> pickedByDayDrug = new HashMap<>();
+
+        if (needHospital || needDrug) {
+            for (PdfRowRecord r : records) {
+                if (needHospital && r.getTarget() == HighlightTarget.VISIT_SUMMARY) {
+                    addHospitalDays(hospitalDaySums, r);
+                }
+                if (needDrug && r.getTarget() == HighlightTarget.PRESCRIPTION) {
+                    pickDayDrug(pickedByDayDrug, r);
+                }
+            }
+        }
+
+        Map<String, Integer> drugDaySums = new HashMap<>();
+        Set<String> pickedDrugRows = new HashSet<>();
+        for (PdfRowRecord r : pickedByDayDrug.values()) {
+            pickedDrugRows.add(RuleContext.rowKeyOf(r));
+
+            String key = drugKey(r);
+            int days = parsePositiveInt(r.getTotalDays());
+            if (key.isBlank() || days <= 0) continue;
+
+            drugDaySums.merge(key, days, Integer::sum);
+        }
+
+        return new RuleContext(hospitalDaySums, drugDaySums, pickedDrugRows);
+    }
+
+    private void addHospitalDays(Map<String, Integer> sumByHospital, PdfRowRecord r) {
+        //  약국 제외
+        if (isPharmacy(r.getInstitutionName())) return;
+
+        String key = normalizeHospitalKey(r.getInstitutionName());
+        if (key.isBlank()) return;
+
+        int totalDays = parseTotalDays(r.getDaysOfStayOrVisit()); // 11(0) -> 11
+        if (totalDays <= 0) return;
+
+        sumByHospital.merge(key, totalDays, Integer::sum);
+    }
+
+    /**
+     * 같은 날짜 + 같은 약(성분+약품명) 기준으로 처방조제 우선, 없으면 외래
+     */
+    private void pickDayDrug(Map<String, PdfRowRecord> pickedByDayDrug, PdfRowRecord r) {
+        String date = r.getTreatmentStartDate() == null ? "" : r.getTreatmentStartDate();
+        String key = drugKey(r);
+        if (date.isBlank() || key.isBlank()) return;
+
+        String dayDrugKey = date + "|" + key;
+
+        PdfRowRecord prev = pickedByDayDrug.get(dayDrugKey);
+        if (prev == null) {
+            pickedByDayDrug.put(dayDrugKey, r);
+            return;
+        }
+
+        // 기존이 외래이고, 현재가 처방조제면 교체
+        if (!isDispense(prev) && isDispense(r)) {
+            pickedByDayDrug.put(dayDrugKey, r);
+        }
+    }
+
+    private boolean isDispense(PdfRowRecord r) {
+        return r.getRawLine() != null && r.getRawLine().contains("처방조제");
+    }
+}
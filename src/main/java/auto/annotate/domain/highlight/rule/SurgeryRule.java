@@ -0,0 +1,51 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.common.utils.SurgeryTokenMatcher;
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import auto.annotate.domain.document.extract.PageSignature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * 수술 내역 포함: 세부진료정보 row에 "…수술" 토큰
+ */
+@Component
+@RequiredArgsConstructor
+public class SurgeryRule implements HighlightRule {
+
+    private final SurgeryTokenMatcher surgeryTokenMatcher;
+
+    @Override
+    public HighlightType type() {
+        return HighlightType.HAS_SURGERY;
+    }
+
+    @Override
+    public HighlightTarget target() {
+        return HighlightTarget.TREATMENT_DETAIL;
+    }
+
+    @Override
+    public Set<RuleAggregate> requiredAggregates() {
+        return Set.of();
+    }
+
+    @Override
+    public boolean matches(PdfRowRecord row, RuleContext context) {
+        return surgeryTokenMatcher.hasRealSurgeryToken(row.getTreatmentDetail());
+    }
+
+    @Override
+    public boolean filtersPages() {
+        return true;
+    }
+
+    @Override
+    public boolean mayMatchPage(PageSignature page) {
+        return page.isSurgeryMarker();
+    }
+}
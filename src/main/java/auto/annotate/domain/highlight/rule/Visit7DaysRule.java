@@ -0,0 +1,40 @@
+package auto.annotate.domain.highlight.rule;
+
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
+import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+import static auto.annotate.common.utils.HospitalKeyUtils.normalizeHospitalKey;
+
+/**
+ * 동일 병원 누적 내원 7일 이상
+ */
+@Component
+public class Visit7DaysRule implements HighlightRule {
+
+    private static final int THRESHOLD_DAYS = 7;
+
+    @Override
+    public HighlightType type() {
+        return HighlightType.VISIT_OVER_7_DAYS;
+    }
+
+    @Override
+    public HighlightTarget target() {
+        return HighlightTarget.VISIT_SUMMARY;
+    }
+
+    @Override
+    public Set<RuleAggregate> requiredAggregates() {
+        return Set.of(RuleAggregate.HOSPITAL_DAY_SUM);
+    }
+
+    @Override
+    public boolean matches(PdfRowRecord row, RuleContext context) {
+        String key = normalizeHospitalKey(row.getInstitutionName());
+        return !key.isBlank() && context.hospitalDays(key) >= THRESHOLD_DAYS;
+    }
+}
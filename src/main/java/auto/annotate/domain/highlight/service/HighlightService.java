@@ -1,9 +1,33 @@
 package auto.annotate.domain.highlight.service;
 
+import auto.annotate.domain.document.dto.HighlightTarget;
+import auto.annotate.domain.document.dto.HighlightType;
 import auto.annotate.domain.document.dto.response.PdfRowRecord;
+import auto.annotate.domain.highlight.rule.PagePlan;
+import auto.annotate.domain.highlight.rule.RuleContext;
+import auto.annotate.domain.highlight.rule.RuleEvaluation;
 
 import java.util.List;
+import java.util.Set;
 
 public interface HighlightService {
     List<PdfRowRecord> applyHighlights(List<PdfRowRecord> records, int condition);
+
+    /** 여러 조건을 한 번에 적용 (집계 1회 + 룰 fused loop 1회) */
+    RuleEvaluation evaluate(List<PdfRowRecord> records, Set<HighlightType> types);
+
+    /** 미리 계산한 문서 단위 집계로 일부 row(페이지 범위)만 판정 */
+    RuleEvaluation evaluate(List<PdfRowRecord> records, Set<HighlightType> types, RuleContext context);
+
+    /** 선택된 조건이 문서 단위 집계를 필요로 하는지 (false면 row 단독 판정) */
+    boolean requiresAggregates(Set<HighlightType> types);
+
+    /** 문서 전체 row로 선택된 조건의 집계만 계산 */
+    RuleContext aggregate(List<PdfRowRecord> records, Set<HighlightType> types);
+
+    /** 구현된 룰이 있는 조건 */
+    Set<HighlightType> supportedTypes();
+
+    /** 선택된 조건 기준으로 target PDF에서 파싱할 페이지 계획 */
+    PagePlan planPages(HighlightTarget target, Set<HighlightType> types);
 }
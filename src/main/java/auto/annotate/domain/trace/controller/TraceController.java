@@ -0,0 +1,47 @@
+package auto.annotate.domain.trace.controller;
+
+import auto.annotate.common.exception.BaseException;
+import auto.annotate.common.exception.ExceptionEnum;
+import auto.annotate.common.response.ApiResponse;
+import auto.annotate.common.response.ApiResponseEnum;
+import auto.annotate.common.trace.TraceAccess;
+import auto.annotate.common.trace.TraceStore;
+import auto.annotate.domain.trace.dto.response.TraceResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/trace")
+public class TraceController {
+
+    private final TraceStore traceStore;
+    private final TraceAccess traceAccess;
+
+    /**
+     * 진단 트레이스 다운로드 (traceId는 트레이스된 요청의 X-Trace-Id 응답 헤더)
+     * - 트레이스에 진료 정보 원문이 있으므로 관리자 토큰(X-Admin-Token) 필요
+     */
+    @GetMapping(value = "/{traceId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<TraceResponse>> download(@PathVariable String traceId,
+                                                               HttpServletRequest request) {
+        if (!traceAccess.isAdmin(request)) {
+            throw new BaseException(ExceptionEnum.TRACE_FORBIDDEN);
+        }
+
+        TraceResponse trace = traceStore.find(traceId)
+                .map(TraceResponse::from)
+                .orElseThrow(() -> new BaseException(ExceptionEnum.TRACE_NOT_FOUND));
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trace-" + traceId + ".json\"")
+                .body(ApiResponse.successWithData(trace, ApiResponseEnum.TRACE_FOUND));
+    }
+}
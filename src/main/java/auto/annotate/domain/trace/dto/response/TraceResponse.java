@@ -0,0 +1,68 @@
+package auto.annotate.domain.trace.dto.response;
+
+import auto.annotate.common.trace.DiagnosticTrace;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 진단 트레이스 다운로드 응답
+ */
+@Getter
+@Builder
+public class TraceResponse {
+
+    private final String traceId;
+    private final String method;
+    private final String uri;
+    private final String reason;
+    private final String startedAt;
+    private final boolean finished;
+    private final int status;
+    private final long elapsedMs;
+    private final int dropped;
+    private final List<Event> events;
+
+    @Getter
+    @Builder
+    public static class Event {
+        private final long atMicros;
+        private final String thread;
+        private final String name;
+        private final Map<String, String> fields;
+    }
+
+    public static TraceResponse from(DiagnosticTrace trace) {
+        return TraceResponse.builder()
+                .traceId(trace.getTraceId())
+                .method(trace.getMethod())
+                .uri(trace.getUri())
+                .reason(trace.getReason())
+                .startedAt(trace.getStartedAt().toString())
+                .finished(trace.isFinished())
+                .status(trace.getStatus())
+                .elapsedMs(trace.getElapsedMs())
+                .dropped(trace.getDropped().get())
+                .events(trace.snapshot().stream().map(TraceResponse::toEvent).toList())
+                .build();
+    }
+
+    // ✅ 값 문자열 변환은 여기서만 (트레이스 기록 시점에는 하지 않음)
+    private static Event toEvent(DiagnosticTrace.Event e) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        Object[] kv = e.getFields();
+        for (int i = 0; kv != null && i + 1 < kv.length; i += 2) {
+            fields.put(String.valueOf(kv[i]), String.valueOf(kv[i + 1]));
+        }
+
+        return Event.builder()
+                .atMicros(e.getAtMicros())
+                .thread(e.getThread())
+                .name(e.getName())
+                .fields(fields)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package auto.annotate.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickTest {
+
+    private static List<String> matches(AhoCorasick<String> matcher, String text) {
+        List<String> out = new ArrayList<>();
+        matcher.search(text, (start, end, payload) -> out.add(start + ":" + end + ":" + payload));
+        return out;
+    }
+
+    @Test
+    void overlappingKeywordsAreAllReported() {
+        AhoCorasick<String> matcher = new AhoCorasick<String>()
+                .add("he", "HE")
+                .add("she", "SHE")
+                .add("hers", "HERS")
+                .add("his", "HIS")
+                .build();
+
+        List<String> hits = matches(matcher, "ushers");
+
+        assertEquals(List.of("1:4:SHE", "2:4:HE", "2:6:HERS"), hits);
+    }
+
+    @Test
+    void sharedSuffixFollowsFailureLinks() {
+        // "수술"은 "관절수술" / "척추수술"의 접미사 → failure link로 함께 나와야 함
+        AhoCorasick<String> matcher = new AhoCorasick<String>()
+                .add("관절수술", "JOINT")
+                .add("척추수술", "SPINE")
+                .add("수술", "SURGERY")
+                .build();
+
+        List<String> hits = matches(matcher, "척추관절수술");
+
+        assertEquals(List.of("2:6:JOINT", "4:6:SURGERY"), hits);
+    }
+
+    @Test
+    void mismatchAfterPartialPrefixRestartsCorrectly() {
+        AhoCorasick<String> matcher = new AhoCorasick<String>()
+                .add("abcd", "ABCD")
+                .add("bce", "BCE")
+                .build();
+
+        assertEquals(List.of("1:4:BCE"), matches(matcher, "abce"));
+    }
+
+    @Test
+    void sameKeywordWithSeveralPayloadsHitsOncePerPayload() {
+        AhoCorasick<String> matcher = new AhoCorasick<String>()
+                .add("입원", "A")
+                .add("입원", "B")
+                .build();
+
+        assertEquals(List.of("0:2:A", "0:2:B"), matches(matcher, "입원"));
+    }
+
+    @Test
+    void matchesAtTextBoundaries() {
+        AhoCorasick<String> matcher = new AhoCorasick<String>()
+                .add("ab", "AB")
+                .build();
+
+        assertEquals(List.of("0:2:AB", "4:6:AB"), matches(matcher, "abxxab"));
+        assertEquals(List.of("0:2:AB"), matches(matcher, "ab"));
+    }
+
+    @Test
+    void rangeSearchDoesNotMatchAcrossSegmentBoundary() {
+        AhoCorasick<String> matcher = new AhoCorasick<String>()
+                .add("ab", "AB")
+                .build();
+
+        // 두 구간 "xa" | "bx" 경계에 걸친 "ab"는 구간별 검색에서 나오면 안 됨
+        String text = "xabx";
+        List<String> hits = new ArrayList<>();
+        matcher.search(text, 0, 2, (s, e, p) -> hits.add(s + ":" + e));
+        matcher.search(text, 2, 4, (s, e, p) -> hits.add(s + ":" + e));
+        assertTrue(hits.isEmpty());
+
+        // 구간 안의 매칭은 전체 text 기준 인덱스로 나온다
+        List<String> inRange = new ArrayList<>();
+        matcher.search("xxab", 2, 4, (s, e, p) -> inRange.add(s + ":" + e));
+        assertEquals(List.of("2:4"), inRange);
+    }
+
+    @Test
+    void emptyMatcherAndNullTextAreNoOps() {
+        AhoCorasick<String> empty = new AhoCorasick<String>().add("", "X").build();
+        assertTrue(empty.isEmpty());
+        assertTrue(matches(empty, "anything").isEmpty());
+
+        AhoCorasick<String> matcher = new AhoCorasick<String>().add("a", "A").build();
+        List<String> hits = new ArrayList<>();
+        matcher.search(null, (s, e, p) -> hits.add(p));
+        assertTrue(hits.isEmpty());
+    }
+}